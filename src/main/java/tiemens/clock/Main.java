@@ -32,8 +32,12 @@
  */
 package tiemens.clock;
 
+import tiemens.clock.format.FormatBenchmark;
 import tiemens.clock.simple.MainSimpleClock;
+import tiemens.clock.simpleimage.FrameBudgetBenchmark;
+import tiemens.clock.simpleimage.RasterBenchmark;
 import tiemens.clock.simpleimage.SimpleImageClockMain;
+import tiemens.clock.tick.ClockThreads;
 
 
 /**
@@ -50,8 +54,21 @@ public class Main
     // class static methods
     // ==================================================
 
+    /**
+     * @param args "simple" (default), "image", "bench", "formatbench" or 
+     *             "rasterbench", then its options;
+     *             "virtual" anywhere runs background work on virtual threads
+     */
     public static void main(String[] args)
     {
+        for (String arg : args)
+        {
+            if ("virtual".equalsIgnoreCase(arg))
+            {
+                ClockThreads.setMode(ClockThreads.Mode.VIRTUAL);
+            }
+        }
+
         if ((args.length == 0) ||
                 "MainSimpleClock".equalsIgnoreCase(args[0]) ||
                 "simple".equalsIgnoreCase(args[0]))
@@ -63,6 +80,18 @@ public class Main
         {
             SimpleImageClockMain.main(args);
         }
+        else if ("bench".equalsIgnoreCase(args[0]))
+        {
+            FrameBudgetBenchmark.main(args);
+        }
+        else if ("formatbench".equalsIgnoreCase(args[0]))
+        {
+            FormatBenchmark.main(args);
+        }
+        else if ("rasterbench".equalsIgnoreCase(args[0]))
+        {
+            RasterBenchmark.main(args);
+        }
         else
         {
             MainSimpleClock.main(args);
@@ -0,0 +1,174 @@
+/*========================================================================
+ * FormatBenchmark.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.format;
+
+import java.text.DecimalFormat;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Times one call of each way to make the "h:mm:ss" clock string: the
+ * Calendar and DecimalFormat code the simple clock used before 
+ * TimeFormatter (kept here only as the baseline), TimeFormatter's 
+ * getTimeString with a new second every call, and its allocation-free 
+ * format into a char[].
+ * 
+ * Every call is for a different second, so getTimeString never returns
+ * its cached String.  Each way runs several rounds; the best round is 
+ * reported, the earlier ones being JIT warm-up.
+ * 
+ * Usage: tiemens.clock.Main formatbench [calls=2000000] [rounds=5]
+ * 
+ * This is a plain timing loop, not a harness: run it on a quiet machine,
+ * and compare the numbers with each other rather than across machines.
+ * 
+ * @author Tim Tiemens
+ */
+public class FormatBenchmark
+{
+    /**
+     * one way of formatting, timed by run
+     */
+    private interface Way
+    {
+        /**
+         * @return something depending on the result, so it is not optimized away
+         */
+        int format(long millis);
+    }
+
+    private final TimeZone zone;
+    private final int calls;
+    private final int rounds;
+
+    /**
+     * @param args calls= (per round) and rounds=
+     */
+    public static void main(String[] args)
+    {
+        int calls = 2000000;
+        int rounds = 5;
+        for (String arg : args)
+        {
+            if (arg.startsWith("calls="))
+            {
+                calls = Integer.parseInt(arg.substring("calls=".length()));
+            }
+            else if (arg.startsWith("rounds="))
+            {
+                rounds = Integer.parseInt(arg.substring("rounds=".length()));
+            }
+        }
+        new FormatBenchmark(TimeZone.getDefault(), calls, rounds).run();
+    }
+
+    /**
+     * @param inZone zone to format in
+     * @param inCalls calls per round
+     * @param inRounds rounds per way
+     */
+    public FormatBenchmark(final TimeZone inZone, final int inCalls, final int inRounds)
+    {
+        zone = inZone;
+        calls = inCalls;
+        rounds = inRounds;
+    }
+
+    /**
+     * Time every way, printing one line each.
+     */
+    public void run()
+    {
+        System.out.println("zone " + zone.getID() + ", " + calls + " calls per round, " + 
+                           rounds + " rounds, best round shown");
+
+        final DecimalFormat tf = new DecimalFormat("#0");
+        final DecimalFormat tflz = new DecimalFormat("00");
+        report("Calendar + DecimalFormat", new Way()
+        {
+            public int format(final long millis)
+            {
+                Calendar myCal = Calendar.getInstance(zone);
+                myCal.setTimeInMillis(millis);
+                int hour = myCal.get(Calendar.HOUR);
+                if (hour == 0) 
+                {
+                    hour = 12;
+                }
+                StringBuffer sb = new StringBuffer();
+                sb.append(tf.format(hour));
+                sb.append(':');
+                sb.append(tflz.format(myCal.get(Calendar.MINUTE)));
+                sb.append(':');
+                sb.append(tflz.format(myCal.get(Calendar.SECOND)));
+                return sb.toString().length();
+            }
+        });
+
+        final TimeFormatter formatter = new TimeFormatter(zone);
+        report("TimeFormatter.getTimeString", new Way()
+        {
+            public int format(final long millis)
+            {
+                return formatter.getTimeString(millis).length();
+            }
+        });
+
+        final char[] dest = new char[TimeFormatter.MAX_LENGTH];
+        report("TimeFormatter.format", new Way()
+        {
+            public int format(final long millis)
+            {
+                return formatter.format(millis, dest, 0) + dest[0];
+            }
+        });
+    }
+
+    private void report(final String name, final Way way)
+    {
+        final long start = System.currentTimeMillis();
+        long best = Long.MAX_VALUE;
+        long sink = 0L;
+        for (int r = 0; r < rounds; r++)
+        {
+            final long t0 = System.nanoTime();
+            for (int i = 0; i < calls; i++)
+            {
+                sink += way.format(start + (i * 1000L));
+            }
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        System.out.println(String.format("%-28s %8.1f ns per call   (%d)", 
+                                         name, ((double) best) / calls, sink));
+    }
+}
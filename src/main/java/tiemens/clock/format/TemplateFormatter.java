@@ -0,0 +1,204 @@
+/*========================================================================
+ * TemplateFormatter.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.format;
+
+import java.util.TimeZone;
+
+/**
+ * Formats epoch milliseconds with a compiled {@link TimeTemplate}.
+ * 
+ * Like {@link TimeFormatter}, the zone offset comes from the zone's shared
+ * {@link ZoneOffsetTable} and every field is arithmetic on the local
+ * millis; the date, when the template shows one, is computed from the
+ * local day number without a Calendar.
+ * 
+ * {@link #format(long, char[], int)} allocates nothing.  Instances are 
+ * thread-safe; the last string made is an immutable object published
+ * through a volatile field.
+ * 
+ * @author Tim Tiemens
+ */
+public final class TemplateFormatter implements TimeStringGenerator
+{
+    private static final long MILLIS_PER_DAY = 24L * 60L * 60L * 1000L;
+
+    /**
+     * @param spec preset name or pattern, see {@link TimeTemplate#compile}
+     * @param zone zone to show, null for the default zone
+     * @return a formatter for spec in zone
+     */
+    public static TemplateFormatter forSpec(final String spec, final TimeZone zone)
+    {
+        return new TemplateFormatter(TimeTemplate.compile(spec), zone);
+    }
+
+    /**
+     * the last string made by getTimeString, and the resolution unit it shows
+     */
+    private static final class Last
+    {
+        private final long unit;
+        private final String text;
+
+        private Last(final long inUnit, final String inText)
+        {
+            unit = inUnit;
+            text = inText;
+        }
+    }
+
+    private final TimeTemplate template;
+    private final TimeFormatter offsets;
+    private final boolean usesDate;
+    private volatile Last last = null;
+
+    /**
+     * @param inTemplate compiled template
+     * @param zone zone to show, null for the default zone
+     */
+    public TemplateFormatter(final TimeTemplate inTemplate, final TimeZone zone)
+    {
+        template = inTemplate;
+        offsets = TimeFormatter.forZone(zone);
+        usesDate = template.uses(TimeTemplate.YEAR) ||
+                   template.uses(TimeTemplate.MONTH) ||
+                   template.uses(TimeTemplate.DAY);
+    }
+
+    public TimeTemplate getTemplate()
+    {
+        return template;
+    }
+
+    /**
+     * Write the string for millis into dest.
+     * @param millis epoch milliseconds
+     * @param dest destination, with room for getTemplate().getWidth() chars
+     * @param offset index of the first char
+     * @return number of chars written, always getTemplate().getWidth()
+     */
+    public int format(final long millis, final char[] dest, final int offset)
+    {
+        final long local = millis + offsets.getOffset(millis);
+        long days = local / MILLIS_PER_DAY;
+        long ofDay = local % MILLIS_PER_DAY;
+        if (ofDay < 0L)
+        {
+            ofDay += MILLIS_PER_DAY;
+            days--;
+        }
+        final int millisOfDay = (int) ofDay;
+        final int secondOfDay = millisOfDay / 1000;
+
+        int year = 0;
+        int month = 0;
+        int day = 0;
+        if (usesDate)
+        {
+            // days since 1970-01-01 to civil date, proleptic Gregorian
+            // (Howard Hinnant, "chrono-Compatible Low-Level Date Algorithms")
+            final long z = days + 719468L;
+            final long era = ((z >= 0L) ? z : (z - 146096L)) / 146097L;
+            final long doe = z - (era * 146097L);
+            final long yoe = (doe - (doe / 1460L) + (doe / 36524L) - (doe / 146096L)) / 365L;
+            final long doy = doe - ((365L * yoe) + (yoe / 4L) - (yoe / 100L));
+            final long mp = ((5L * doy) + 2L) / 153L;
+            day = (int) (doy - (((153L * mp) + 2L) / 5L) + 1L);
+            month = (int) ((mp < 10L) ? (mp + 3L) : (mp - 9L));
+            year = (int) (yoe + (era * 400L) + ((month <= 2) ? 1L : 0L));
+        }
+
+        return template.fill(secondOfDay / 3600,
+                             (secondOfDay / 60) % 60,
+                             secondOfDay % 60,
+                             millisOfDay % 1000,
+                             year, month, day,
+                             dest, offset);
+    }
+
+    /**
+     * @param millis epoch milliseconds
+     * @return the string for millis; the same String instance is returned
+     *          for repeated calls within one resolution unit
+     */
+    @Override
+    public String getTimeString(final long millis)
+    {
+        final long resolution = template.getResolutionMillis();
+        final long unit = (millis >= 0L) ? (millis / resolution) : 
+                                           ((millis - resolution + 1L) / resolution);
+        Last l = last;
+        if ((l != null) && (l.unit == unit))
+        {
+            return l.text;
+        }
+        final char[] buffer = new char[template.getWidth()];
+        l = new Last(unit, new String(buffer, 0, format(millis, buffer, 0)));
+        last = l;
+        return l.text;
+    }
+
+    @Override
+    public String getBiggestString()
+    {
+        return template.getBiggestString();
+    }
+
+    /**
+     * @param generator any generator
+     * @return true if generator's text changes more than once a second
+     */
+    public static boolean isSubSecond(final TimeStringGenerator generator)
+    {
+        return (generator instanceof TemplateFormatter) &&
+               (((TemplateFormatter) generator).getTemplate().getResolutionMillis() < 1000L);
+    }
+
+    /**
+     * For the clocks that tick once a second (simple, wall, one panel 
+     * per zone), which would show a sub-second field stuck at 0.
+     * @param generator any generator
+     * @return generator
+     * @throws IllegalArgumentException if generator is sub-second
+     */
+    public static TimeStringGenerator requireWholeSecond(final TimeStringGenerator generator)
+    {
+        if (isSubSecond(generator))
+        {
+            throw new IllegalArgumentException("Format " + 
+                    ((TemplateFormatter) generator).getTemplate().getPattern() + 
+                    " changes faster than this clock ticks; use the image clock without wall or zones");
+        }
+        return generator;
+    }
+}
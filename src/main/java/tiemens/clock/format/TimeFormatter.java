@@ -0,0 +1,212 @@
+/*========================================================================
+ * TimeFormatter.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.format;
+
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Formats epoch milliseconds as a 12 hour "h:mm:ss" clock string, the
+ * same text as Calendar.HOUR/MINUTE/SECOND gives, without a Calendar.
+ * 
+ * The zone offset is a lookup in the zone's shared {@link ZoneOffsetTable}
+ * (or, for an instant outside it, in a table kept for that instant);
+ * hours, minutes and seconds are then plain arithmetic on the local millis.
+ * 
+ * {@link #format(long, char[], int)} allocates nothing.
+ * Instances are thread-safe: the table and the last result are immutable 
+ * objects published through volatile fields.  {@link #forZone} shares one
+ * formatter per zone (ID and rules), so clocks showing the same zone share the
+ * string made for each second.
+ * 
+ * @author Tim Tiemens
+ */
+public final class TimeFormatter
+{
+    /**
+     * length of the widest result, "12:59:59"
+     */
+    public static final int MAX_LENGTH = 8;
+
+    private static final long MILLIS_PER_DAY = 24L * 60L * 60L * 1000L;
+
+    private static final ConcurrentMap<ZoneKey, TimeFormatter> formatters = 
+            new ConcurrentHashMap<ZoneKey, TimeFormatter>();
+
+    /**
+     * @param zone zone to show, null for the default zone
+     * @return the formatter shared by every user of zone
+     */
+    public static TimeFormatter forZone(final TimeZone zone)
+    {
+        final TimeZone z = (zone != null) ? zone : TimeZone.getDefault();
+        final ZoneKey key = new ZoneKey(z);
+        TimeFormatter ret = formatters.get(key);
+        if (ret == null)
+        {
+            ret = new TimeFormatter(z);
+            TimeFormatter prev = formatters.putIfAbsent(key, ret);
+            if (prev != null)
+            {
+                ret = prev;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * the last string made by getTimeString, and the second it shows
+     */
+    private static final class Last
+    {
+        private final long second;
+        private final String text;
+
+        private Last(final long inSecond, final String inText)
+        {
+            second = inSecond;
+            text = inText;
+        }
+    }
+
+    private final TimeZone zone;
+    private volatile ZoneOffsetTable table = null;
+
+    /**
+     * the last table for an instant outside the shared one
+     */
+    private volatile ZoneOffsetTable away = null;
+    private volatile Last last = null;
+
+    /**
+     * Prefer {@link #forZone}, which shares instances.
+     * @param inZone zone to show, null for the default zone
+     */
+    public TimeFormatter(final TimeZone inZone)
+    {
+        // TimeZone is mutable and not thread-safe; keep a private copy
+        zone = (TimeZone) ((inZone != null) ? inZone : TimeZone.getDefault()).clone();
+    }
+
+    public String getZoneId()
+    {
+        return zone.getID();
+    }
+
+    /**
+     * @param millis epoch milliseconds
+     * @return zone offset at millis, milliseconds
+     */
+    public int getOffset(final long millis)
+    {
+        ZoneOffsetTable t = table;
+        if ((t != null) && t.covers(millis))
+        {
+            return t.getOffset(millis);
+        }
+        t = away;
+        if ((t != null) && t.covers(millis))
+        {
+            return t.getOffset(millis);
+        }
+        t = ZoneOffsetTable.forZone(zone, millis);
+        if (t.isShared())
+        {
+            table = t;
+        }
+        else
+        {
+            away = t;
+        }
+        return t.getOffset(millis);
+    }
+
+    /**
+     * Write the clock string for millis into dest.
+     * @param millis epoch milliseconds
+     * @param dest destination, with room for MAX_LENGTH chars after offset
+     * @param offset index of the first char
+     * @return number of chars written, 7 or 8
+     */
+    public int format(final long millis, final char[] dest, final int offset)
+    {
+        final long local = millis + getOffset(millis);
+        long ofDay = local % MILLIS_PER_DAY;
+        if (ofDay < 0L)
+        {
+            ofDay += MILLIS_PER_DAY;
+        }
+        final int secondOfDay = (int) (ofDay / 1000L);
+        int hour = (secondOfDay / 3600) % 12;
+        if (hour == 0)
+        {
+            hour = 12;
+        }
+        final int minute = (secondOfDay / 60) % 60;
+        final int second = secondOfDay % 60;
+
+        int i = offset;
+        if (hour >= 10)
+        {
+            dest[i++] = (char) ('0' + (hour / 10));
+        }
+        dest[i++] = (char) ('0' + (hour % 10));
+        dest[i++] = ':';
+        dest[i++] = (char) ('0' + (minute / 10));
+        dest[i++] = (char) ('0' + (minute % 10));
+        dest[i++] = ':';
+        dest[i++] = (char) ('0' + (second / 10));
+        dest[i++] = (char) ('0' + (second % 10));
+        return i - offset;
+    }
+
+    /**
+     * @param millis epoch milliseconds
+     * @return the clock string for millis; the same String instance is 
+     *          returned for repeated calls within one second
+     */
+    public String getTimeString(final long millis)
+    {
+        final long second = (millis >= 0L) ? (millis / 1000L) : ((millis - 999L) / 1000L);
+        Last l = last;
+        if ((l != null) && (l.second == second))
+        {
+            return l.text;
+        }
+        final char[] buffer = new char[MAX_LENGTH];
+        l = new Last(second, new String(buffer, 0, format(millis, buffer, 0)));
+        last = l;
+        return l.text;
+    }
+}
@@ -0,0 +1,330 @@
+/*========================================================================
+ * TimeTemplate.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.format;
+
+/**
+ * A display format, compiled once into a fixed-width plan: one slot per 
+ * output character, each either a literal or one decimal digit of one 
+ * time field.
+ * 
+ * Every time formats to the same number of characters, so a layout sized
+ * for {@link #getBiggestString()} holds every result, and each slot always
+ * lands on the same glyph cell.
+ * 
+ * Pattern letters (any other letter is an error, anything else a literal):
+ * <pre>
+ *   HH  hour 00-23          H   hour, blank-padded
+ *   hh  hour 01-12          h   hour 1-12, blank-padded
+ *   mm  minute              ss  second
+ *   S   tenths, SS hundredths, SSS milliseconds
+ *   yyyy year, yy two digit year
+ *   MM  month 01-12         dd  day of month
+ * </pre>
+ * A single m, s, M or d is blank-padded, like h.
+ * 
+ * @author Tim Tiemens
+ */
+public final class TimeTemplate
+{
+    /** 12 hour clock, as SimpleTimeFormatGenerator but fixed width */
+    public static final String H12 = "h:mm:ss";
+    public static final String H24 = "HH:mm:ss";
+    public static final String TENTHS = "HH:mm:ss.S";
+    public static final String HUNDREDTHS = "HH:mm:ss.SS";
+    public static final String DATE = "yyyy-MM-dd HH:mm:ss";
+
+    static final int LITERAL = 0;
+    static final int HOUR24 = 1;
+    static final int HOUR12 = 2;
+    static final int MINUTE = 3;
+    static final int SECOND = 4;
+    static final int MILLIS = 5;
+    static final int YEAR = 6;
+    static final int MONTH = 7;
+    static final int DAY = 8;
+
+    /**
+     * @param spec a preset name (12h, 24h, tenths, hundredths, date)
+     *           or a pattern
+     * @return the compiled template
+     */
+    public static TimeTemplate compile(final String spec)
+    {
+        if ("12h".equalsIgnoreCase(spec))
+        {
+            return new TimeTemplate(H12);
+        }
+        if ("24h".equalsIgnoreCase(spec))
+        {
+            return new TimeTemplate(H24);
+        }
+        if ("tenths".equalsIgnoreCase(spec))
+        {
+            return new TimeTemplate(TENTHS);
+        }
+        if ("hundredths".equalsIgnoreCase(spec))
+        {
+            return new TimeTemplate(HUNDREDTHS);
+        }
+        if ("date".equalsIgnoreCase(spec))
+        {
+            return new TimeTemplate(DATE);
+        }
+        return new TimeTemplate(spec);
+    }
+
+    private final String pattern;
+
+    /**
+     * per slot: field (LITERAL for a literal char), divisor picking the 
+     * digit, the literal char, and whether a leading 0 shows as blank
+     */
+    private final int[] field;
+    private final int[] divisor;
+    private final char[] literal;
+    private final boolean[] blankZero;
+
+    /**
+     * bit (1 << field) set for each field used
+     */
+    private final int fieldsUsed;
+
+    /**
+     * milliseconds between changes of the output: 1000, or less with S
+     */
+    private final long resolutionMillis;
+
+    private final String biggest;
+
+    /**
+     * @param inPattern pattern, see the class comment
+     */
+    public TimeTemplate(final String inPattern)
+    {
+        pattern = inPattern;
+        final int n = inPattern.length();
+        // a single h/H/m/s/M/d takes two slots
+        int[] f = new int[n * 2];
+        int[] d = new int[n * 2];
+        char[] l = new char[n * 2];
+        boolean[] b = new boolean[n * 2];
+        int slots = 0;
+        int used = 0;
+        long resolution = 1000L;
+
+        int i = 0;
+        while (i < n)
+        {
+            final char c = inPattern.charAt(i);
+            int run = 1;
+            while ((i + run < n) && (inPattern.charAt(i + run) == c))
+            {
+                run++;
+            }
+
+            int kind;
+            int digits;
+            boolean blank = false;
+            switch (c)
+            {
+            case 'H': kind = HOUR24; digits = 2; blank = (run == 1); break;
+            case 'h': kind = HOUR12; digits = 2; blank = (run == 1); break;
+            case 'm': kind = MINUTE; digits = 2; blank = (run == 1); break;
+            case 's': kind = SECOND; digits = 2; blank = (run == 1); break;
+            case 'M': kind = MONTH;  digits = 2; blank = (run == 1); break;
+            case 'd': kind = DAY;    digits = 2; blank = (run == 1); break;
+            case 'S': kind = MILLIS; digits = run; break;
+            case 'y': kind = YEAR;   digits = run; break;
+            default:
+                if (Character.isLetter(c))
+                {
+                    throw new IllegalArgumentException("Unknown pattern letter '" + c + 
+                                                       "' in " + inPattern);
+                }
+                kind = LITERAL;
+                digits = run;
+                break;
+            }
+            if (((kind == MILLIS) && (run > 3)) ||
+                ((kind == YEAR) && (run != 2) && (run != 4)) ||
+                ((digits == 2) && (kind != LITERAL) && (kind != MILLIS) && (run > 2)))
+            {
+                throw new IllegalArgumentException("Bad field length " + run + 
+                                                   " of '" + c + "' in " + inPattern);
+            }
+
+            for (int k = 0; k < digits; k++)
+            {
+                f[slots] = kind;
+                l[slots] = c;
+                if (kind == MILLIS)
+                {
+                    d[slots] = pow10(2 - k);
+                }
+                else if (kind != LITERAL)
+                {
+                    d[slots] = pow10(digits - 1 - k);
+                    b[slots] = blank && (k == 0);
+                }
+                slots++;
+            }
+            if (kind != LITERAL)
+            {
+                used |= (1 << kind);
+            }
+            if (kind == MILLIS)
+            {
+                resolution = Math.min(resolution, pow10(3 - run));
+            }
+            i += run;
+        }
+
+        field = copy(f, slots);
+        divisor = copy(d, slots);
+        literal = new char[slots];
+        System.arraycopy(l, 0, literal, 0, slots);
+        blankZero = new boolean[slots];
+        System.arraycopy(b, 0, blankZero, 0, slots);
+        fieldsUsed = used;
+        resolutionMillis = resolution;
+
+        char[] big = new char[slots];
+        for (int s = 0; s < slots; s++)
+        {
+            big[s] = (field[s] == LITERAL) ? literal[s] : '0';
+        }
+        biggest = new String(big);
+    }
+
+    public String getPattern()
+    {
+        return pattern;
+    }
+
+    /**
+     * @return number of characters every time formats to
+     */
+    public int getWidth()
+    {
+        return field.length;
+    }
+
+    /**
+     * @return a string as wide as any result, for sizing a display
+     */
+    public String getBiggestString()
+    {
+        return biggest;
+    }
+
+    /**
+     * @return milliseconds between changes of the output
+     */
+    public long getResolutionMillis()
+    {
+        return resolutionMillis;
+    }
+
+    /**
+     * @param fieldCode one of the field constants
+     * @return true if the template shows that field
+     */
+    boolean uses(final int fieldCode)
+    {
+        return (fieldsUsed & (1 << fieldCode)) != 0;
+    }
+
+    /**
+     * Fill the slots from field values.
+     * @param hour24 hour of day, 0-23
+     * @param minute minute, 0-59
+     * @param second second, 0-59
+     * @param millis millisecond, 0-999
+     * @param year year, used only if uses(YEAR)
+     * @param month month 1-12, used only if uses(MONTH)
+     * @param day day of month, used only if uses(DAY)
+     * @param dest destination, with room for getWidth() chars after offset
+     * @param offset index of the first char
+     * @return getWidth()
+     */
+    int fill(final int hour24, final int minute, final int second, final int millis,
+             final int year, final int month, final int day,
+             final char[] dest, final int offset)
+    {
+        final int n = field.length;
+        for (int s = 0; s < n; s++)
+        {
+            final int value;
+            switch (field[s])
+            {
+            case HOUR24: value = hour24; break;
+            case HOUR12: value = ((hour24 % 12) == 0) ? 12 : (hour24 % 12); break;
+            case MINUTE: value = minute; break;
+            case SECOND: value = second; break;
+            case MILLIS: value = millis; break;
+            case YEAR:   value = year; break;
+            case MONTH:  value = month; break;
+            case DAY:    value = day; break;
+            default:
+                dest[offset + s] = literal[s];
+                continue;
+            }
+            final int digit = (value / divisor[s]) % 10;
+            dest[offset + s] = ((digit == 0) && blankZero[s]) ? ' ' : (char) ('0' + digit);
+        }
+        return n;
+    }
+
+    @Override
+    public String toString()
+    {
+        return pattern;
+    }
+
+    private static int pow10(final int exponent)
+    {
+        int ret = 1;
+        for (int i = 0; i < exponent; i++)
+        {
+            ret *= 10;
+        }
+        return ret;
+    }
+
+    private static int[] copy(final int[] in, final int length)
+    {
+        int[] ret = new int[length];
+        System.arraycopy(in, 0, ret, 0, length);
+        return ret;
+    }
+}
@@ -0,0 +1,85 @@
+/*========================================================================
+ * ZoneKey.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.format;
+
+import java.util.TimeZone;
+
+/**
+ * Map key for things shared per zone: two zones are the same key only if
+ * they have the same ID and the same rules, so a custom zone that reuses 
+ * a tz database ID does not get (or spoil) the real zone's entry.
+ * 
+ * @author Tim Tiemens
+ */
+final class ZoneKey
+{
+    private final String id;
+
+    /**
+     * private copy, never changed, so the key stays put in a map
+     */
+    private final TimeZone zone;
+
+    ZoneKey(final TimeZone inZone)
+    {
+        zone = (TimeZone) inZone.clone();
+        id = zone.getID();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return (id.hashCode() * 31) + zone.getRawOffset();
+    }
+
+    @Override
+    public boolean equals(final Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (! (obj instanceof ZoneKey))
+        {
+            return false;
+        }
+        final ZoneKey other = (ZoneKey) obj;
+        return id.equals(other.id) && zone.hasSameRules(other.zone);
+    }
+
+    @Override
+    public String toString()
+    {
+        return id;
+    }
+}
@@ -0,0 +1,286 @@
+/*========================================================================
+ * ZoneOffsetTable.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.format;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A zone's offset transitions over a window of time, as two small arrays,
+ * so the offset at any instant in the window is a binary search over a 
+ * handful of longs.
+ * 
+ * Tables are immutable, so any number of threads can read one without 
+ * locking.  {@link #forZone} shares one table per zone (ID and rules), and
+ * replaces it with a fresh one once the clock runs past the end of its 
+ * window.  An instant far outside the shared window gets a table of its
+ * own, so looking at another year does not throw away the current one.
+ * 
+ * Transitions are found by stepping TimeZone.getOffset a day at a time 
+ * and binary searching each change to the millisecond, so this works for
+ * any TimeZone, not just the tz database ones.
+ * 
+ * @author Tim Tiemens
+ */
+public final class ZoneOffsetTable
+{
+    private static final long MILLIS_PER_DAY = 24L * 60L * 60L * 1000L;
+
+    /**
+     * window covered by a table from forZone: a day back, two years ahead
+     */
+    public static final long WINDOW_BEFORE_MILLIS = MILLIS_PER_DAY;
+    public static final long WINDOW_AFTER_MILLIS = 2L * 366L * MILLIS_PER_DAY;
+
+    private static final ConcurrentMap<ZoneKey, ZoneOffsetTable> tables = 
+            new ConcurrentHashMap<ZoneKey, ZoneOffsetTable>();
+
+    /**
+     * @param zone any zone
+     * @param nowMillis an instant the table must cover
+     * @return a table for zone covering nowMillis: the shared one, unless
+     *          nowMillis is before it or more than a window past its end
+     */
+    public static ZoneOffsetTable forZone(final TimeZone zone, final long nowMillis)
+    {
+        final ZoneKey key = new ZoneKey(zone);
+        final ZoneOffsetTable shared = tables.get(key);
+        if ((shared != null) && shared.covers(nowMillis))
+        {
+            return shared;
+        }
+        final ZoneOffsetTable ret = new ZoneOffsetTable(zone, 
+                                                        nowMillis - WINDOW_BEFORE_MILLIS, 
+                                                        nowMillis + WINDOW_AFTER_MILLIS,
+                                                        true);
+        if (shared == null)
+        {
+            tables.putIfAbsent(key, ret);
+        }
+        else if ((nowMillis >= shared.until) && 
+                 (nowMillis < shared.until + WINDOW_AFTER_MILLIS))
+        {
+            // the clock ran off the end
+            tables.replace(key, shared, ret);
+        }
+        return (tables.get(key) == ret) ? ret : ret.unshared();
+    }
+
+    /**
+     * @return number of zones with a shared table
+     */
+    public static int getSharedCount()
+    {
+        return tables.size();
+    }
+
+    private final TimeZone zone;
+    private final long from;
+    private final long until;
+
+    /**
+     * transitions[i] is the first millisecond with offsets[i + 1];
+     * offsets[0] applies from 'from' up to transitions[0]
+     */
+    private final long[] transitions;
+    private final int[] offsets;
+
+    /**
+     * true for the table forZone hands out for the current window
+     */
+    private final boolean shared;
+
+    /**
+     * @param inZone zone to tabulate
+     * @param inFrom first millisecond covered
+     * @param inUntil first millisecond not covered
+     */
+    public ZoneOffsetTable(final TimeZone inZone, final long inFrom, final long inUntil)
+    {
+        this(inZone, inFrom, inUntil, false);
+    }
+
+    private ZoneOffsetTable(final TimeZone inZone, 
+                            final long inFrom, 
+                            final long inUntil,
+                            final boolean inShared)
+    {
+        if (inUntil <= inFrom)
+        {
+            throw new IllegalArgumentException("Empty window " + inFrom + " to " + inUntil);
+        }
+        // TimeZone is not thread-safe; keep a private copy for lookups outside the window
+        zone = (TimeZone) inZone.clone();
+        from = inFrom;
+        until = inUntil;
+
+        long[] times = new long[8];
+        int[] values = new int[9];
+        int count = 0;
+        int offset = zone.getOffset(from);
+        values[0] = offset;
+        long lo = from;
+        while (lo < until)
+        {
+            final long hi = Math.min(until, lo + MILLIS_PER_DAY);
+            final int next = zone.getOffset(hi);
+            if (next != offset)
+            {
+                // first millisecond in (lo, hi] with the new offset
+                long a = lo;
+                long b = hi;
+                while (b - a > 1L)
+                {
+                    final long mid = a + ((b - a) / 2L);
+                    if (zone.getOffset(mid) == offset)
+                    {
+                        a = mid;
+                    }
+                    else
+                    {
+                        b = mid;
+                    }
+                }
+                if (b >= until)
+                {
+                    break;
+                }
+                if (count == times.length)
+                {
+                    times = Arrays.copyOf(times, count * 2);
+                    values = Arrays.copyOf(values, count * 2 + 1);
+                }
+                times[count] = b;
+                offset = zone.getOffset(b);
+                values[++count] = offset;
+                lo = b;
+            }
+            else
+            {
+                lo = hi;
+            }
+        }
+        transitions = Arrays.copyOf(times, count);
+        offsets = Arrays.copyOf(values, count + 1);
+        shared = inShared;
+    }
+
+    /**
+     * the same table, marked not shared
+     */
+    private ZoneOffsetTable(final ZoneOffsetTable other)
+    {
+        zone = other.zone;
+        from = other.from;
+        until = other.until;
+        transitions = other.transitions;
+        offsets = other.offsets;
+        shared = false;
+    }
+
+    private ZoneOffsetTable unshared()
+    {
+        return new ZoneOffsetTable(this);
+    }
+
+    /**
+     * @return true if this is the table forZone shares for its zone
+     */
+    public boolean isShared()
+    {
+        return shared;
+    }
+
+    public String getZoneId()
+    {
+        return zone.getID();
+    }
+
+    /**
+     * @param millis epoch milliseconds
+     * @return true if millis is inside this table's window
+     */
+    public boolean covers(final long millis)
+    {
+        return (millis >= from) && (millis < until);
+    }
+
+    /**
+     * @return first millisecond not covered
+     */
+    public long getUntil()
+    {
+        return until;
+    }
+
+    /**
+     * @return number of offset changes inside the window
+     */
+    public int getTransitionCount()
+    {
+        return transitions.length;
+    }
+
+    /**
+     * @param millis epoch milliseconds
+     * @return zone offset at millis, milliseconds; outside the window,
+     *          asks the TimeZone
+     */
+    public int getOffset(final long millis)
+    {
+        if (! covers(millis))
+        {
+            synchronized (zone)
+            {
+                return zone.getOffset(millis);
+            }
+        }
+        int lo = 0;
+        int hi = transitions.length;
+        while (lo < hi)
+        {
+            final int mid = (lo + hi) >>> 1;
+            if (transitions[mid] <= millis)
+            {
+                lo = mid + 1;
+            }
+            else
+            {
+                hi = mid;
+            }
+        }
+        return offsets[lo];
+    }
+}
@@ -0,0 +1,409 @@
+/*========================================================================
+ * ClockMetrics.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.metrics;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import tiemens.clock.tick.TimeSource;
+
+/**
+ * Paint-time and frame-jitter measurements for one clock component.
+ * 
+ * The component calls {@link #tick} when a new time is handed to it,
+ * {@link #paintStart}/{@link #paintEnd} around its paint, and 
+ * {@link #shown} once the painted frame holds the latest tick.
+ * From those this records: paint duration, tick-to-paint latency, how far
+ * after the true second boundary each second appears, seconds missed or
+ * shown twice, and (for repaints posted with invokeLater) EDT queue delay.
+ * 
+ * Disabled by default: each hook is then one volatile read.
+ * Enable with -Dclock.metrics=true.  The component then registers its
+ * metrics with JMX (tiemens.clock:type=ClockMetrics,name=...), where they 
+ * can be read and switched off and on, from addNotify to removeNotify, 
+ * so a discarded component is not kept alive by the MBean server.
+ * -Dclock.metrics.overlay=true also draws a summary on the clock.
+ * 
+ * @author Tim Tiemens
+ */
+public class ClockMetrics
+    implements ClockMetricsMBean
+{
+    private static Logger logger = Logger.getLogger("ClockMetrics");
+
+    private static final AtomicLong instances = new AtomicLong();
+
+    /**
+     * @param prefix component kind, e.g. "DisplayPanel"
+     * @return new metrics named prefix-N, enabled if -Dclock.metrics=true;
+     *         not yet registered, see {@link #register}
+     */
+    public static ClockMetrics create(final String prefix)
+    {
+        ClockMetrics ret = new ClockMetrics(prefix + "-" + instances.incrementAndGet());
+        ret.setEnabled(Boolean.getBoolean("clock.metrics"));
+        ret.setOverlayVisible(Boolean.getBoolean("clock.metrics.overlay"));
+        return ret;
+    }
+
+    private final String name;
+    private volatile boolean enabled = false;
+    private volatile boolean overlayVisible = false;
+
+    /**
+     * true between a register() that registered and the next unregister()
+     */
+    private boolean registered = false;
+
+    private final LatencyHistogram paintTime = new LatencyHistogram();
+    private final LatencyHistogram tickToPaint = new LatencyHistogram();
+    private final LatencyHistogram edtQueueDelay = new LatencyHistogram();
+    private final LatencyHistogram boundaryOffset = new LatencyHistogram();
+
+    /**
+     * latest tick not yet shown: System.nanoTime() when it arrived, and 
+     * its wall-clock time; pendingNanos is 0 when there is none
+     */
+    private final AtomicLong pendingNanos = new AtomicLong();
+    private volatile long pendingMillis;
+
+    private final AtomicLong lastShownSecond = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong secondsShown = new AtomicLong();
+    private final AtomicLong missedSeconds = new AtomicLong();
+    private final AtomicLong duplicateSeconds = new AtomicLong();
+
+    public ClockMetrics(final String inName)
+    {
+        name = inName;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * A new time was handed to the component.
+     * @param wallMillis the time it shows
+     */
+    public void tick(final long wallMillis)
+    {
+        if (! enabled)
+        {
+            return;
+        }
+        pendingMillis = wallMillis;
+        pendingNanos.set(System.nanoTime());
+    }
+
+    /**
+     * A new time, taken from the wall clock now, was handed to the component.
+     */
+    public void tick()
+    {
+        if (enabled)
+        {
+            tick(TimeSource.getDefault().currentTimeMillis());
+        }
+    }
+
+    /**
+     * @return start time to pass to paintEnd, 0 when disabled
+     */
+    public long paintStart()
+    {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void paintEnd(final long start)
+    {
+        if (start != 0L)
+        {
+            paintTime.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * The frame just painted holds the latest tick, if any is pending.
+     */
+    public void shown()
+    {
+        if (! enabled)
+        {
+            return;
+        }
+        final long tickNanos = pendingNanos.getAndSet(0L);
+        if (tickNanos == 0L)
+        {
+            return;
+        }
+        final long now = TimeSource.getDefault().currentTimeMillis();
+        final long millis = pendingMillis;
+        tickToPaint.record(System.nanoTime() - tickNanos);
+
+        final long second = millis / 1000L;
+        boundaryOffset.record((now - second * 1000L) * 1000000L);
+
+        final long last = lastShownSecond.getAndSet(second);
+        secondsShown.incrementAndGet();
+        if (last != Long.MIN_VALUE)
+        {
+            if (second == last)
+            {
+                duplicateSeconds.incrementAndGet();
+            }
+            else if (second > last + 1)
+            {
+                missedSeconds.addAndGet(second - last - 1);
+            }
+        }
+    }
+
+    /**
+     * @return value to pass to queueRun, 0 when disabled
+     */
+    public long queuePosted()
+    {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * The task posted at postedNanos is now running on the EDT.
+     */
+    public void queueRun(final long postedNanos)
+    {
+        if (postedNanos != 0L)
+        {
+            edtQueueDelay.record(System.nanoTime() - postedNanos);
+        }
+    }
+
+    /**
+     * Draw a one-line summary, if the overlay is visible.
+     * @param g graphics to draw on
+     * @param x left
+     * @param y baseline
+     */
+    public void drawOverlay(final Graphics g, final int x, final int y)
+    {
+        if (! overlayVisible)
+        {
+            return;
+        }
+        g.setColor(Color.ORANGE);
+        g.drawString("paint p99 " + getPaintP99Micros() + "us" +
+                     "  lat p99 " + getTickToPaintP99Micros() + "us" +
+                     "  +" + getBoundaryOffsetMeanMillis() + "ms" +
+                     "  miss " + getMissedSeconds() + 
+                     "  dup " + getDuplicateSeconds(),
+                     x, y);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public void setEnabled(boolean inEnabled)
+    {
+        enabled = inEnabled;
+    }
+
+    public boolean isOverlayVisible()
+    {
+        return overlayVisible;
+    }
+
+    /**
+     * The overlay needs measurements, so showing it also enables them.
+     */
+    public void setOverlayVisible(boolean visible)
+    {
+        overlayVisible = visible;
+        if (visible)
+        {
+            enabled = true;
+        }
+    }
+
+    public long getPaintCount()
+    {
+        return paintTime.getCount();
+    }
+
+    public long getPaintMeanMicros()
+    {
+        return paintTime.getMean() / 1000L;
+    }
+
+    public long getPaintP99Micros()
+    {
+        return paintTime.getPercentile(0.99) / 1000L;
+    }
+
+    public long getPaintMaxMicros()
+    {
+        return paintTime.getMax() / 1000L;
+    }
+
+    public long getTickToPaintMeanMicros()
+    {
+        return tickToPaint.getMean() / 1000L;
+    }
+
+    public long getTickToPaintP99Micros()
+    {
+        return tickToPaint.getPercentile(0.99) / 1000L;
+    }
+
+    public long getEdtQueueDelayMeanMicros()
+    {
+        return edtQueueDelay.getMean() / 1000L;
+    }
+
+    public long getEdtQueueDelayP99Micros()
+    {
+        return edtQueueDelay.getPercentile(0.99) / 1000L;
+    }
+
+    public long getBoundaryOffsetMeanMillis()
+    {
+        return boundaryOffset.getMean() / 1000000L;
+    }
+
+    public long getBoundaryOffsetMaxMillis()
+    {
+        return boundaryOffset.getMax() / 1000000L;
+    }
+
+    public long getSecondsShown()
+    {
+        return secondsShown.get();
+    }
+
+    public long getMissedSeconds()
+    {
+        return missedSeconds.get();
+    }
+
+    public long getDuplicateSeconds()
+    {
+        return duplicateSeconds.get();
+    }
+
+    /**
+     * @return paint duration histogram, in nanoseconds
+     */
+    public LatencyHistogram getPaintTimeHistogram()
+    {
+        return paintTime;
+    }
+
+    public void reset()
+    {
+        paintTime.reset();
+        tickToPaint.reset();
+        edtQueueDelay.reset();
+        boundaryOffset.reset();
+        pendingNanos.set(0L);
+        lastShownSecond.set(Long.MIN_VALUE);
+        secondsShown.set(0L);
+        missedSeconds.set(0L);
+        duplicateSeconds.set(0L);
+    }
+
+    /**
+     * Remove this from the platform MBean server.  Does nothing (and does
+     * not touch JMX) unless register() registered it.
+     */
+    public synchronized void unregister()
+    {
+        if (! registered)
+        {
+            return;
+        }
+        registered = false;
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = getObjectName();
+            if (server.isRegistered(objectName))
+            {
+                server.unregisterMBean(objectName);
+            }
+        }
+        catch (JMException e)
+        {
+            logger.warning("Failed to unregister " + name + ": " + e);
+        }
+    }
+
+    /**
+     * Add this to the platform MBean server as
+     * tiemens.clock:type=ClockMetrics,name=getName(), if -Dclock.metrics=true.
+     * Does nothing if already registered.  Pair with {@link #unregister}.
+     */
+    public synchronized void register()
+    {
+        if (registered || ! Boolean.getBoolean("clock.metrics"))
+        {
+            return;
+        }
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = getObjectName();
+            if (! server.isRegistered(objectName))
+            {
+                server.registerMBean(this, objectName);
+            }
+            registered = true;
+        }
+        catch (JMException e)
+        {
+            logger.warning("Failed to register " + name + ": " + e);
+        }
+    }
+
+    private ObjectName getObjectName() throws JMException
+    {
+        return new ObjectName("tiemens.clock:type=ClockMetrics,name=" + name);
+    }
+}
@@ -36,13 +36,37 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.GridLayout;
 import java.text.DecimalFormat;
-import java.util.Calendar;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
 
+import javax.swing.BorderFactory;
 import javax.swing.JFrame;
+import javax.swing.JPanel;
+
+import tiemens.clock.format.TemplateFormatter;
+import tiemens.clock.format.TimeFormatter;
+import tiemens.clock.format.TimeStringGenerator;
+import tiemens.clock.metrics.ClockMetrics;
+import tiemens.clock.tick.ClockTickService;
+import tiemens.clock.tick.TimeSource;
+import tiemens.clock.tick.VisibilityWatcher;
 
 /**
  * A simple Clock
+ * 
+ * Ticks come from the shared {@link ClockTickService}, so any number of
+ * clocks share one ticking thread.  The clock is stopped, running or
+ * paused; start, stop, pause and resume may be called in any order, from
+ * any thread, any number of times.  Each running period holds exactly one
+ * subscription, and a tick still in flight from an ended one is ignored.
+ * 
+ * While the clock can not be seen (hidden, removed, or its window 
+ * iconified) a running clock drops its subscription, so it neither ticks
+ * nor paints; shown again, it paints the current time at once and ticks
+ * from the next second on.
  */
 public class MainSimpleClock 
 extends javax.swing.JComponent 
@@ -61,30 +85,138 @@ extends javax.swing.JComponent
     // class static methods
     // ==================================================
 
+    /**
+     * @param args time zone IDs (e.g. Europe/Paris) show one clock per zone;
+     *             with none, one clock shows the default zone;
+     *             "format=<preset|pattern>" picks a TimeTemplate
+     */
     public static void main(String[] args) 
     {
         JFrame window = new JFrame("Clock In Java");
         window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
-        MainSimpleClock clock = new MainSimpleClock();
-        clock.setFont(new Font("sansserif", Font.PLAIN, 48));
+        List<TimeZone> zones = getZones(args);
+        if (zones.isEmpty()) 
+        {
+            MainSimpleClock clock = new MainSimpleClock(getGenerator(args, null));
+            clock.setFont(new Font("sansserif", Font.PLAIN, 48));
 
-        window.setContentPane(clock);
+            window.setContentPane(clock);
 
-        clock.start();
+            clock.start();
+        }
+        else 
+        {
+            JPanel clocks = new JPanel(new GridLayout(0, 1));
+            for (TimeZone zone : zones) 
+            {
+                MainSimpleClock clock = new MainSimpleClock(getGenerator(args, zone));
+                clock.setFont(new Font("sansserif", Font.PLAIN, 48));
+                clock.setBorder(BorderFactory.createTitledBorder(zone.getID()));
+                clocks.add(clock);
+                clock.start();
+            }
+            window.setContentPane(clocks);
+        }
 
         window.pack();
         window.setVisible(true);
 
     }
 
+    /**
+     * @param args command line arguments
+     * @return the arguments that are time zone IDs, as zones, in order
+     */
+    public static List<TimeZone> getZones(final String[] args) 
+    {
+        List<TimeZone> ret = new ArrayList<TimeZone>();
+        for (String arg : args) 
+        {
+            TimeZone zone = TimeZone.getTimeZone(arg);
+            // unknown IDs come back as GMT
+            if (zone.getID().equals(arg)) 
+            {
+                ret.add(zone);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @param args command line arguments
+     * @return the spec of the "format=" argument, or null if there is none
+     */
+    public static String getFormat(final String[] args) 
+    {
+        final String prefix = "format=";
+        for (String arg : args) 
+        {
+            if (arg.startsWith(prefix)) 
+            {
+                return arg.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param args command line arguments
+     * @param zone time zone to show, null for the default zone
+     * @return a TemplateFormatter if args has "format=", else a 
+     *          SimpleTimeFormatGenerator
+     */
+    public static TimeStringGenerator getGenerator(final String[] args, final TimeZone zone) 
+    {
+        String spec = getFormat(args);
+        if (spec != null) 
+        {
+            return TemplateFormatter.forSpec(spec, zone);
+        }
+        return new SimpleTimeFormatGenerator(zone);
+    }
+
     // ==================================================
     // instance data
     // ==================================================
 
-    private SimpleTimeFormatGenerator timeGenerator;
-    private volatile boolean done = false;
-    private Thread thread;
+    /**
+     * Lifecycle states.
+     */
+    public enum State
+    {
+        /** no subscription; paints the current time when asked */
+        STOPPED,
+        /** subscribed while visible; paints the text of the last tick */
+        RUNNING,
+        /** no subscription; keeps painting the text shown when paused */
+        PAUSED
+    }
+
+    private final TimeStringGenerator timeGenerator;
+
+    /**
+     * guards state, hidden and subscriber
+     */
+    private final Object lifecycleLock = new Object();
+    private State state = State.STOPPED;
+
+    /**
+     * true while the clock can not be seen, see VisibilityWatcher
+     */
+    private boolean hidden = false;
+
+    /**
+     * the current subscription, null unless RUNNING and not hidden; 
+     * volatile so a tick can tell whether it belongs to the current one
+     */
+    private volatile ClockTickService.Subscriber subscriber = null;
+
+    /**
+     * time string to paint, from the last tick; null to format the current time
+     */
+    private volatile String shownText = null;
+    private final ClockMetrics metrics = ClockMetrics.create("MainSimpleClock");
 
     // ==================================================
     // factories
@@ -96,7 +228,32 @@ extends javax.swing.JComponent
 
     public MainSimpleClock() 
     {
-        timeGenerator = new SimpleTimeFormatGenerator();
+        this((TimeZone) null);
+    }
+
+    /**
+     * @param zone time zone to show, null for the default zone
+     */
+    public MainSimpleClock(final TimeZone zone) 
+    {
+        this(new SimpleTimeFormatGenerator(zone));
+    }
+
+    /**
+     * @param inTimeGenerator makes the string to show, whole seconds only
+     * @throws IllegalArgumentException for a sub-second generator, as this 
+     *          clock ticks once a second
+     */
+    public MainSimpleClock(final TimeStringGenerator inTimeGenerator) 
+    {
+        timeGenerator = TemplateFormatter.requireWholeSecond(inTimeGenerator);
+        new VisibilityWatcher(this, new VisibilityWatcher.Listener() 
+        {
+            public void visibilityChanged(final boolean visible) 
+            {
+                setHidden(! visible);
+            }
+        });
     }
 
 
@@ -105,39 +262,113 @@ extends javax.swing.JComponent
     // public methods
     // ==================================================
 
+    /**
+     * Repaint once per second, as each second starts, on the shared 
+     * ClockTickService tick.  Same as resume() when paused; does nothing
+     * when already running.
+     */
     public void start() 
     {
-        if (thread != null) 
+        synchronized (lifecycleLock) 
         {
-            stop();
-            thread = null;
+            if (state == State.RUNNING) 
+            {
+                return;
+            }
+            state = State.RUNNING;
+            if (! hidden) 
+            {
+                subscribe();
+                refresh();
+            }
         }
+    }
 
-        thread = new Thread(new Runnable() 
+    /**
+     * Stop ticking; returns once this clock's subscription is gone, and
+     * the ticking thread too if this was its last subscriber.
+     * The clock then paints the current time whenever it is repainted.
+     */
+    public void stop() 
+    {
+        synchronized (lifecycleLock) 
         {
-            public void run() 
+            unsubscribe();
+            state = State.STOPPED;
+            shownText = null;
+        }
+        repaint();
+    }
+
+    /**
+     * Stop ticking, but keep showing the current text.
+     * Does nothing unless running.
+     */
+    public void pause() 
+    {
+        synchronized (lifecycleLock) 
+        {
+            if (state != State.RUNNING) 
             {
-                while (!done) 
-                {
-                    MainSimpleClock.this.repaint();
-                    try 
-                    {
-                        Thread.sleep(700);
-                    }
-                    catch (InterruptedException e) 
-                    {
-                        done = true;
-                    }
-                }
+                return;
             }
-        });
+            unsubscribe();
+            state = State.PAUSED;
+            if (shownText == null) 
+            {
+                shownText = timeGenerator.getTimeString(TimeSource.getDefault().currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * Resume ticking after pause(), showing the current time at once
+     * rather than at the next second.  Does nothing unless paused.
+     */
+    public void resume() 
+    {
+        synchronized (lifecycleLock) 
+        {
+            if (state != State.PAUSED) 
+            {
+                return;
+            }
+            state = State.RUNNING;
+            if (! hidden) 
+            {
+                subscribe();
+                refresh();
+            }
+        }
+    }
 
-        thread.start();
+    public State getState() 
+    {
+        synchronized (lifecycleLock) 
+        {
+            return state;
+        }
     }
 
-    public void stop() 
+    public boolean isRunning() 
     {
-        done = true;
+        return getState() == State.RUNNING;
+    }
+
+    /**
+     * @return true if running and subscribed, i.e. running and not hidden
+     */
+    public boolean isTicking() 
+    {
+        return subscriber != null;
+    }
+
+    /**
+     * @return paint time and frame jitter measurements for this clock
+     */
+    public ClockMetrics getMetrics()
+    {
+        return metrics;
     }
 
     /**
@@ -146,7 +377,12 @@ extends javax.swing.JComponent
     @Override
     public void paint(Graphics g) 
     {
-        String  s = timeGenerator.getTimeString(new java.util.Date().getTime());
+        final long start = metrics.paintStart();
+        String  s = shownText;
+        if (s == null) 
+        {
+            s = timeGenerator.getTimeString(TimeSource.getDefault().currentTimeMillis());
+        }
 
         FontMetrics fm = getFontMetrics(getFont());
         int x = (getSize().width - fm.stringWidth(s)) / 2;
@@ -161,6 +397,25 @@ extends javax.swing.JComponent
                 ascent;
 
         g.drawString(s, x, y);
+        paintBorder(g);
+
+        metrics.shown();
+        metrics.drawOverlay(g, 2, bottom - 2);
+        metrics.paintEnd(start);
+    }
+
+    @Override
+    public void addNotify() 
+    {
+        super.addNotify();
+        metrics.register();
+    }
+
+    @Override
+    public void removeNotify() 
+    {
+        metrics.unregister();
+        super.removeNotify();
     }
 
     @Override
@@ -179,34 +434,132 @@ extends javax.swing.JComponent
     // non public methods
     // ==================================================
 
+    /**
+     * Take a new subscription; caller holds lifecycleLock.
+     */
+    private void subscribe() 
+    {
+        final ClockTickService.Subscriber sub = new ClockTickService.Subscriber() 
+        {
+            public void tick(final long secondMillis, final String text) 
+            {
+                // a tick racing with unsubscribe belongs to an ended subscription
+                if (subscriber != this) 
+                {
+                    return;
+                }
+                shownText = text;
+                metrics.tick(secondMillis);
+                MainSimpleClock.this.repaint();
+            }
+        };
+        subscriber = sub;
+        ClockTickService.getShared().subscribe(timeGenerator, sub);
+    }
+
+    /**
+     * Follow visibility: a running clock unsubscribes while hidden, and
+     * shows the current time as soon as it is visible again.
+     */
+    private void setHidden(final boolean inHidden) 
+    {
+        synchronized (lifecycleLock) 
+        {
+            hidden = inHidden;
+            if (state != State.RUNNING) 
+            {
+                return;
+            }
+            if (hidden) 
+            {
+                unsubscribe();
+            }
+            else if (subscriber == null) 
+            {
+                subscribe();
+                refresh();
+            }
+        }
+    }
+
+    /**
+     * Drop the subscription, if any; caller holds lifecycleLock.
+     */
+    private void unsubscribe() 
+    {
+        final ClockTickService.Subscriber sub = subscriber;
+        subscriber = null;
+        if (sub != null) 
+        {
+            ClockTickService.getShared().unsubscribe(sub);
+        }
+    }
+
+    /**
+     * Show the current time now, instead of at the next tick; caller 
+     * holds lifecycleLock, so a concurrent stop() can not be overwritten.
+     */
+    private void refresh() 
+    {
+        shownText = timeGenerator.getTimeString(TimeSource.getDefault().currentTimeMillis());
+        repaint();
+    }
+
+    /**
+     * 12 hour "h:mm:ss" strings, formatted by the zone's shared, 
+     * thread-safe TimeFormatter instead of a Calendar per call.
+     */
     public static class SimpleTimeFormatGenerator
+        implements TimeStringGenerator
     {
+        protected final TimeZone zone;
+        protected final TimeFormatter formatter;
+
+        /**
+         * @deprecated no longer used, formatter does the formatting; 
+         *             kept for subclasses
+         */
+        @Deprecated
         protected DecimalFormat tf;
+
+        /**
+         * @deprecated no longer used, formatter does the formatting; 
+         *             kept for subclasses
+         */
+        @Deprecated
         protected DecimalFormat tflz;
 
         public SimpleTimeFormatGenerator()
         {
+            this(null);
+        }
+
+        /**
+         * @param inZone time zone to show, null for the default zone
+         */
+        public SimpleTimeFormatGenerator(final TimeZone inZone)
+        {
+            zone = inZone;
+            formatter = TimeFormatter.forZone(inZone);
             tf = new DecimalFormat("#0");
             tflz = new DecimalFormat("00");
         }
 
         public String getTimeString(final long millis)
         {
-            Calendar myCal = Calendar.getInstance();
-            myCal.setTimeInMillis(millis);
-            int hour = myCal.get(Calendar.HOUR);
-            if (hour == 0) 
-            {
-                hour = 12;
-            }
+            return formatter.getTimeString(millis);
+        }
 
-            StringBuffer sb = new StringBuffer();
-            sb.append(tf.format(hour));
-            sb.append(':');
-            sb.append(tflz.format(myCal.get(Calendar.MINUTE)));
-            sb.append(':');
-            sb.append(tflz.format(myCal.get(Calendar.SECOND)));
-            return sb.toString();
+        /**
+         * Allocation-free form of getTimeString.
+         * @param millis epoch milliseconds
+         * @param dest destination, with room for getBiggestString().length() chars
+         * @param offset index of the first char
+         * @return number of chars written
+         */
+        public int getTimeChars(final long millis, final char[] dest, final int offset)
+        {
+            return formatter.format(millis, dest, offset);
         }
 
         public String getBiggestString() 
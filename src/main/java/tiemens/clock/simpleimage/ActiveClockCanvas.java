@@ -0,0 +1,663 @@
+/*========================================================================
+ * ActiveClockCanvas.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import java.awt.AWTException;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.EventQueue;
+import java.awt.Graphics;
+import java.awt.ImageCapabilities;
+import java.awt.Toolkit;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+import tiemens.clock.format.TimeStringGenerator;
+import tiemens.clock.metrics.ClockMetrics;
+import tiemens.clock.tick.ClockThreads;
+import tiemens.clock.tick.SecondTicker;
+import tiemens.clock.tick.TimeSource;
+import tiemens.clock.tick.VisibilityWatcher;
+
+/**
+ * Active-rendering alternative to {@link DisplayPanel}.
+ * 
+ * Instead of repaint() requests that AWT schedules, a dedicated render
+ * thread draws each frame into a {@link BufferStrategy} and shows it
+ * (page flip when the platform supports it, blit otherwise).
+ * With a time generator set, the render thread wakes right after each
+ * second boundary, formats the time, and shows the frame at once.
+ * 
+ * For sub-second formats (tenths, hundredths) {@link #setFramesPerSecond}
+ * makes it wake at each frame boundary instead, e.g. 60 times a second; a
+ * frame whose text is unchanged is skipped, so tenths at 60 fps still 
+ * draws only ten frames a second.
+ * 
+ * The digits of a frame are composed off screen by a 
+ * {@link HeadlessClockRenderer} (a {@link GlyphRaster} copy, no per-glyph
+ * drawImage) and put into the back buffer with one drawImage, which is
+ * the work {@link FrameBudgetBenchmark} times.
+ * 
+ * While the canvas can not be seen (hidden, or its window iconified) the
+ * render thread sleeps without waking; shown again, it draws the current
+ * time at once, then continues on frame boundaries.
+ * 
+ * @author Tim Tiemens
+ */
+public class ActiveClockCanvas
+    extends Canvas
+    implements ClockDisplay
+{
+    private static final long serialVersionUID = 4017754398461920412L;
+
+    private static Logger logger = Logger.getLogger("ActiveClockCanvas");
+
+    /**
+     * guards the fields below; not a monitor, so the render thread waiting
+     * between frames does not pin a virtual thread's carrier
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * signalled on every change, wakes the render thread
+     */
+    private final Condition changed = lock.newCondition();
+
+    /**
+     * current string to display
+     */
+    private String info;
+
+    /**
+     * digit images, can not be null.
+     */
+    private ConvertCharacterToImage dig;
+
+    /**
+     * color behind the digits, null for the component background
+     */
+    private Color bg_color = null;
+
+    /**
+     * formats the time at each second boundary, null to only 
+     * draw what setInfo sets
+     */
+    private TimeStringGenerator timeGenerator = null;
+
+    /**
+     * time boundaries per second the render thread wakes at, 1 to 1000
+     */
+    private int framesPerSecond = 1;
+
+    /**
+     * text of the last frame drawn, to skip frames that would not change
+     */
+    private String drawnInfo = null;
+
+    /**
+     * time the render thread follows
+     */
+    private final TimeSource source = TimeSource.getDefault();
+
+    /**
+     * true when something changed since the last frame
+     */
+    private boolean frame_requested = true;
+
+    /**
+     * true while the canvas can not be seen, see VisibilityWatcher
+     */
+    private boolean hidden = false;
+
+    /**
+     * the thread that should be rendering, null when stopped; a thread 
+     * that is no longer this finishes on its own
+     */
+    private volatile Thread renderThread = null;
+
+    /**
+     * guards start/stop, so they never hold the component's own monitor
+     */
+    private final Object lifecycle = new Object();
+
+    /**
+     * the last thread started, guarded by lifecycle
+     */
+    private Thread lastThread = null;
+
+    /**
+     * used by the render thread only
+     */
+    private BufferStrategy strategy = null;
+    private Dimension strategy_size = null;
+    private DisplayLayout layout = null;
+
+    /**
+     * written by the render thread only, read by anyone
+     */
+    private volatile long frames = 0;
+
+    /**
+     * used by the render thread only: composes the digits, sized for
+     * renderer_layout, cleared to renderer_bg
+     */
+    private HeadlessClockRenderer renderer = null;
+    private DisplayLayout renderer_layout = null;
+    private Color renderer_bg = null;
+
+    /**
+     * retains the current digit set while displayed
+     */
+    private final GlyphHold glyphs = new GlyphHold();
+
+    /**
+     * frame time and jitter, see ClockMetrics
+     */
+    private final ClockMetrics metrics = ClockMetrics.create("ActiveClockCanvas");
+
+    /**
+     * @param inInfo string to display
+     * @param dimg digit images
+     * @param aw preferred width
+     * @param ah preferred height
+     */
+    public ActiveClockCanvas(final String inInfo,
+                             final ConvertCharacterToImage dimg,
+                             final int aw,
+                             final int ah)
+    {
+        info = inInfo;
+        dig = dimg;
+        glyphs.set(dig);
+        setPreferredSize(new Dimension(aw, ah));
+        setIgnoreRepaint(true);
+
+        addComponentListener(new ComponentAdapter()
+        {
+            @Override
+            public void componentResized(ComponentEvent e)
+            {
+                requestFrame();
+            }
+        });
+        new VisibilityWatcher(this, new VisibilityWatcher.Listener()
+        {
+            public void visibilityChanged(final boolean visible)
+            {
+                lock.lock();
+                try
+                {
+                    hidden = ! visible;
+                    frame_requested = true;
+                    changed.signalAll();
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Format and show the time right after each second boundary.
+     * @param inTimeGenerator formatter, used only on the render thread; null to stop
+     */
+    public void setTimeGenerator(final TimeStringGenerator inTimeGenerator)
+    {
+        lock.lock();
+        try
+        {
+            timeGenerator = inTimeGenerator;
+            frame_requested = true;
+            changed.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param inFramesPerSecond time frames per second, 1 (the default) to 1000;
+     *           more than 1 only helps with a sub-second time generator
+     */
+    public void setFramesPerSecond(final int inFramesPerSecond)
+    {
+        if ((inFramesPerSecond < 1) || (inFramesPerSecond > 1000))
+        {
+            throw new IllegalArgumentException("Bad frames per second " + inFramesPerSecond);
+        }
+        lock.lock();
+        try
+        {
+            framesPerSecond = inFramesPerSecond;
+            changed.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public int getFramesPerSecond()
+    {
+        lock.lock();
+        try
+        {
+            return framesPerSecond;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void setInfo(final String inInfo, final long wallMillis)
+    {
+        setInfo(inInfo);
+        metrics.tick(wallMillis);
+    }
+
+    public void setInfo(final String inInfo)
+    {
+        lock.lock();
+        try
+        {
+            info = inInfo;
+            frame_requested = true;
+            changed.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void setDigitsImages(final ConvertCharacterToImage c2image, 
+                                final Color background)
+    {
+        glyphs.set(c2image);
+        lock.lock();
+        try
+        {
+            dig = c2image;
+            bg_color = background;
+            frame_requested = true;
+            changed.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return frame time and jitter measurements for this canvas
+     */
+    public ClockMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * @return number of frames shown
+     */
+    public long getFrameCount()
+    {
+        return frames;
+    }
+
+    /**
+     * Start the render thread.  Call after the canvas is displayable,
+     * e.g. after its frame is made visible.
+     */
+    public void start()
+    {
+        synchronized (lifecycle)
+        {
+            if (renderThread != null)
+            {
+                return;
+            }
+            // a thread stop() did not wait for still owns the strategy; 
+            // the new one waits for it before drawing
+            final Thread previous = lastThread;
+            lastThread = ClockThreads.newThread("ActiveClockCanvas", new Runnable()
+            {
+                public void run()
+                {
+                    if (awaitFinished(previous, 0))
+                    {
+                        renderLoop();
+                    }
+                }
+            });
+            renderThread = lastThread;
+            lastThread.start();
+        }
+    }
+
+    /**
+     * Stop the render thread.  On the event dispatch thread (e.g. from 
+     * removeNotify) this only asks the thread to finish; elsewhere it 
+     * also waits, up to a second, for it to do so.
+     */
+    public void stop()
+    {
+        final Thread t;
+        synchronized (lifecycle)
+        {
+            t = renderThread;
+            renderThread = null;
+        }
+        if (t != null)
+        {
+            t.interrupt();
+            if (! EventQueue.isDispatchThread())
+            {
+                awaitFinished(t, 1000);
+            }
+        }
+    }
+
+    /**
+     * @param t thread to wait for, can be null
+     * @param millis longest wait, 0 for as long as it takes
+     * @return false if interrupted while waiting
+     */
+    private static boolean awaitFinished(final Thread t, final long millis)
+    {
+        if (t == null)
+        {
+            return true;
+        }
+        try
+        {
+            t.join(millis);
+            return true;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return true while the calling thread is the one that should render
+     */
+    private boolean rendering()
+    {
+        return renderThread == Thread.currentThread();
+    }
+
+    @Override
+    public void addNotify()
+    {
+        super.addNotify();
+        glyphs.resume();
+        metrics.register();
+    }
+
+    /**
+     * Destroys the Canvas's peer; the render thread stops with it.
+     */
+    @Override
+    public void removeNotify()
+    {
+        metrics.unregister();
+        glyphs.suspend();
+        stop();
+        super.removeNotify();
+    }
+
+    /**
+     * Passive paints are ignored; the render thread draws every frame.
+     */
+    @Override
+    public void paint(Graphics g)
+    {
+        requestFrame();
+    }
+
+    @Override
+    public void update(Graphics g)
+    {
+        requestFrame();
+    }
+
+    private void requestFrame()
+    {
+        lock.lock();
+        try
+        {
+            frame_requested = true;
+            changed.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void renderLoop()
+    {
+        try
+        {
+            while (rendering())
+            {
+                String frameInfo;
+                ConvertCharacterToImage frameDig;
+                Color frameBg;
+                boolean requested;
+                lock.lock();
+                try
+                {
+                    // sleep until the next frame boundary, or a change;
+                    // while hidden, until shown again
+                    while (rendering() && (hidden || ! frame_requested))
+                    {
+                        if (hidden || (timeGenerator == null))
+                        {
+                            changed.await();
+                        }
+                        else
+                        {
+                            long now = source.currentTimeMillis();
+                            long next = SecondTicker.nextBoundary(now, 0L, framesPerSecond);
+                            changed.await(source.toRealMillis(next - now), TimeUnit.MILLISECONDS);
+                            if (source.currentTimeMillis() >= next)
+                            {
+                                break;
+                            }
+                        }
+                    }
+                    requested = frame_requested;
+                    frame_requested = false;
+                    if (timeGenerator != null)
+                    {
+                        final long millis = source.currentTimeMillis();
+                        info = timeGenerator.getTimeString(millis);
+                        metrics.tick(millis);
+                    }
+                    frameInfo = info;
+                    frameDig = dig;
+                    frameBg = bg_color;
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+
+                // the generator returns the same String until its text changes
+                if (rendering() && (requested || (frameInfo != drawnInfo)))
+                {
+                    renderFrame(frameInfo, frameDig, frameBg);
+                    drawnInfo = frameInfo;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // stop() asked us to finish
+        }
+        catch (IllegalStateException e)
+        {
+            // the peer went away under a frame already being drawn
+            if (rendering())
+            {
+                throw e;
+            }
+        }
+        finally
+        {
+            strategy = null;
+        }
+    }
+
+    /**
+     * Draw one frame into the back buffer, and show it.
+     */
+    private void renderFrame(final String frameInfo,
+                             final ConvertCharacterToImage frameDig,
+                             final Color frameBg)
+    {
+        final int w = getWidth();
+        final int h = getHeight();
+        if (! isDisplayable() || (w <= 0) || (h <= 0))
+        {
+            return;
+        }
+        if ((strategy == null) || 
+            (strategy_size.width != w) || (strategy_size.height != h))
+        {
+            createStrategy();
+            strategy_size = new Dimension(w, h);
+        }
+
+        final String s = (frameInfo != null) ? frameInfo : "";
+        if ((layout == null) || ! layout.fits(s, s.length(), frameDig, null, w, h))
+        {
+            layout = DisplayLayout.compute(s, s.length(), frameDig, frameDig, null, w, h);
+        }
+        final Color bg = (frameBg != null) ? frameBg : getBackground();
+        final long start = metrics.paintStart();
+        final BufferedImage digits = renderDigits(s, bg);
+
+        do
+        {
+            do
+            {
+                Graphics g = strategy.getDrawGraphics();
+                try
+                {
+                    if (bg != null)
+                    {
+                        g.setColor(bg);
+                        g.fillRect(0, 0, w, h);
+                    }
+                    if (digits != null)
+                    {
+                        g.drawImage(digits, layout.getDigitsX(), layout.getDigitsY(), null);
+                    }
+                    metrics.drawOverlay(g, 2, h - 2);
+                }
+                finally
+                {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+
+        Toolkit.getDefaultToolkit().sync();
+        metrics.shown();
+        metrics.paintEnd(start);
+        frames++;
+    }
+
+    /**
+     * @param s text of the frame, laid out by layout
+     * @param bg color behind the digits, can be null
+     * @return the digits of s, valid until the next call; null if s 
+     *          draws nothing
+     */
+    private BufferedImage renderDigits(final String s, final Color bg)
+    {
+        if ((layout.getDigitsWidth() <= 0) || (layout.getDigitsHeight() <= 0))
+        {
+            return null;
+        }
+        if ((renderer == null) || (renderer_layout != layout) || 
+            ((bg != null) ? ! bg.equals(renderer_bg) : (renderer_bg != null)))
+        {
+            renderer = new HeadlessClockRenderer(layout.getDigitsWidth(), 
+                                                 layout.getDigitsHeight(), 
+                                                 bg);
+            renderer_layout = layout;
+            renderer_bg = bg;
+        }
+        return renderer.render(s, layout.getDigits());
+    }
+
+    /**
+     * Prefer page flipping; fall back to whatever (blit) strategy AWT gives.
+     */
+    private void createStrategy()
+    {
+        try
+        {
+            createBufferStrategy(2, 
+                                 new BufferCapabilities(new ImageCapabilities(true),
+                                                        new ImageCapabilities(true),
+                                                        BufferCapabilities.FlipContents.UNDEFINED));
+        }
+        catch (AWTException e)
+        {
+            logger.fine("Page flipping not available, using blit: " + e.getMessage());
+            createBufferStrategy(2);
+        }
+        strategy = getBufferStrategy();
+        logger.fine("Buffer strategy page flipping=" + 
+                    strategy.getCapabilities().isPageFlipping());
+    }
+}
@@ -0,0 +1,372 @@
+/*========================================================================
+ * BatchClockRenderer.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import tiemens.clock.format.TimeStringGenerator;
+import tiemens.clock.tick.ClockThreads;
+
+/**
+ * Pre-renders clock frames for a range of times, e.g. every second of a day.
+ * 
+ * Times are formatted in order on the calling thread, rendered in parallel
+ * by a pool of workers, and handed to a {@link FrameSink} in order.
+ * At most a fixed window of frames is in flight, and frame buffers are
+ * recycled, so memory does not grow with the length of the range.
+ * 
+ * @author Tim Tiemens
+ */
+public class BatchClockRenderer
+{
+    /**
+     * Receives frames in time order, always on the thread that called 
+     * {@link BatchClockRenderer#render}.
+     */
+    public interface FrameSink
+    {
+        public void begin(int width, int height) throws IOException;
+
+        /**
+         * @param index 0 for the first frame
+         * @param millis time of this frame
+         * @param info formatted time
+         * @param frame pixels; reused after this returns, so copy if needed
+         */
+        public void frame(long index, long millis, String info, BufferedImage frame) throws IOException;
+
+        public void end() throws IOException;
+
+        /**
+         * Called instead of end() when rendering fails or is interrupted,
+         * including when begin() itself failed: release any resources,
+         * without throwing.  The output is incomplete.
+         */
+        public void abort();
+    }
+
+    private final TimeStringGenerator timeGenerator;
+    private final ConvertCharacterToImage dig;
+    private final HeadlessClockRenderer renderer;
+    private final int threads;
+
+    /**
+     * @param inTimeGenerator formats each time; only used from the calling thread
+     * @param inDig digit images
+     * @param background clear color, null for transparent
+     * @param inThreads number of render workers
+     */
+    public BatchClockRenderer(final TimeStringGenerator inTimeGenerator,
+                              final ConvertCharacterToImage inDig,
+                              final Color background,
+                              final int inThreads)
+    {
+        if (inThreads < 1)
+        {
+            throw new IllegalArgumentException("threads must be positive, was " + inThreads);
+        }
+        timeGenerator = inTimeGenerator;
+        dig = inDig;
+        threads = inThreads;
+        renderer = HeadlessClockRenderer.forBiggest(timeGenerator.getBiggestString(), 
+                                                    dig, 
+                                                    background);
+    }
+
+    public int getWidth()
+    {
+        return renderer.getWidth();
+    }
+
+    public int getHeight()
+    {
+        return renderer.getHeight();
+    }
+
+    /**
+     * Render start, start+step, ... up to but not including end.
+     * 
+     * @param startMillis first frame time
+     * @param endMillis end of range, exclusive
+     * @param stepMillis time between frames
+     * @param sink receives every frame, in order
+     * @return number of frames rendered
+     * @throws IOException from the sink, or if a worker failed
+     * @throws InterruptedException if interrupted while waiting for a worker
+     */
+    public long render(final long startMillis,
+                       final long endMillis,
+                       final long stepMillis,
+                       final FrameSink sink)
+        throws IOException, InterruptedException
+    {
+        if (stepMillis <= 0)
+        {
+            throw new IllegalArgumentException("step must be positive, was " + stepMillis);
+        }
+
+        final int window = threads * 2;
+        ArrayDeque<Pending> inFlight = new ArrayDeque<Pending>(window);
+        ArrayDeque<BufferedImage> free = new ArrayDeque<BufferedImage>(window);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, 
+                                                            ClockThreads.factory("BatchClockRenderer"));
+
+        long index = 0;
+        boolean completed = false;
+        try
+        {
+            sink.begin(renderer.getWidth(), renderer.getHeight());
+
+            long next = startMillis;
+            while ((next < endMillis) || (! inFlight.isEmpty()))
+            {
+                // keep the window full
+                while ((next < endMillis) && (inFlight.size() < window))
+                {
+                    BufferedImage frame = free.poll();
+                    if (frame == null)
+                    {
+                        frame = new BufferedImage(renderer.getWidth(), renderer.getHeight(), 
+                                                  BufferedImage.TYPE_INT_ARGB);
+                    }
+                    String info = timeGenerator.getTimeString(next);
+                    Future<BufferedImage> future = pool.submit(new RenderTask(info, frame));
+                    inFlight.add(new Pending(next, info, future));
+                    next += stepMillis;
+                }
+
+                // hand the oldest frame to the sink
+                Pending head = inFlight.poll();
+                BufferedImage frame = await(head.future);
+                sink.frame(index, head.millis, head.info, frame);
+                free.add(frame);
+                index++;
+            }
+
+            completed = true;
+            sink.end();
+        }
+        finally
+        {
+            for (Pending pending : inFlight)
+            {
+                pending.future.cancel(true);
+            }
+            pool.shutdownNow();
+            if (! completed)
+            {
+                sink.abort();
+            }
+        }
+        return index;
+    }
+
+    private static BufferedImage await(final Future<BufferedImage> future)
+        throws IOException, InterruptedException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException e)
+        {
+            throw new IOException("Render failed", e.getCause());
+        }
+    }
+
+    private static class Pending
+    {
+        private final long millis;
+        private final String info;
+        private final Future<BufferedImage> future;
+
+        private Pending(final long inMillis, 
+                        final String inInfo, 
+                        final Future<BufferedImage> inFuture)
+        {
+            millis = inMillis;
+            info = inInfo;
+            future = inFuture;
+        }
+    }
+
+    private class RenderTask
+        implements Callable<BufferedImage>
+    {
+        private final String info;
+        private final BufferedImage frame;
+
+        private RenderTask(final String inInfo, final BufferedImage inFrame)
+        {
+            info = inInfo;
+            frame = inFrame;
+        }
+
+        public BufferedImage call()
+        {
+            renderer.renderArgb(info, dig, 
+                                ((DataBufferInt) frame.getRaster().getDataBuffer()).getData(),
+                                0);
+            return frame;
+        }
+    }
+
+    /**
+     * Writes each frame as dir/prefixNNNNNN.png
+     */
+    public static class PngDirectorySink
+        implements FrameSink
+    {
+        private final File dir;
+        private final String prefix;
+
+        public PngDirectorySink(final File inDir, final String inPrefix)
+        {
+            dir = inDir;
+            prefix = inPrefix;
+        }
+
+        public void begin(int width, int height) throws IOException
+        {
+            if (! dir.isDirectory() && ! dir.mkdirs())
+            {
+                throw new IOException("Cannot create directory " + dir);
+            }
+        }
+
+        public void frame(long index, long millis, String info, BufferedImage frame)
+            throws IOException
+        {
+            File file = new File(dir, String.format("%s%06d.png", prefix, index));
+            if (! ImageIO.write(frame, "png", file))
+            {
+                throw new IOException("No png writer for " + file);
+            }
+        }
+
+        public void end()
+        {
+        }
+
+        public void abort()
+        {
+        }
+    }
+
+    /**
+     * Writes every frame to one file: a header of two big-endian ints
+     * (width, height), then each frame as width*height big-endian ARGB ints,
+     * top row first.
+     */
+    public static class RawFrameFileSink
+        implements FrameSink
+    {
+        private final File file;
+        private OutputStream out;
+        private byte[] bytes;
+
+        public RawFrameFileSink(final File inFile)
+        {
+            file = inFile;
+        }
+
+        public void begin(int width, int height) throws IOException
+        {
+            out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+            bytes = new byte[width * height * 4];
+            writeInt(out, width);
+            writeInt(out, height);
+        }
+
+        public void frame(long index, long millis, String info, BufferedImage frame)
+            throws IOException
+        {
+            int[] argb = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+            for (int i = 0, b = 0; i < argb.length; i++)
+            {
+                final int v = argb[i];
+                bytes[b++] = (byte) (v >>> 24);
+                bytes[b++] = (byte) (v >>> 16);
+                bytes[b++] = (byte) (v >>> 8);
+                bytes[b++] = (byte) v;
+            }
+            out.write(bytes);
+        }
+
+        public void end() throws IOException
+        {
+            OutputStream os = out;
+            out = null;
+            os.close();
+        }
+
+        public void abort()
+        {
+            if (out != null)
+            {
+                try
+                {
+                    out.close();
+                }
+                catch (IOException e)
+                {
+                    // already failing; the first error is the one to report
+                }
+                out = null;
+            }
+        }
+
+        private static void writeInt(final OutputStream os, final int v) throws IOException
+        {
+            os.write(v >>> 24);
+            os.write(v >>> 16);
+            os.write(v >>> 8);
+            os.write(v);
+        }
+    }
+}
@@ -0,0 +1,546 @@
+/*========================================================================
+ * ClockWall.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Panel;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import tiemens.clock.format.TemplateFormatter;
+import tiemens.clock.format.TimeStringGenerator;
+import tiemens.clock.metrics.ClockMetrics;
+import tiemens.clock.simple.MainSimpleClock;
+import tiemens.clock.tick.ClockTickService;
+import tiemens.clock.tick.TimeSource;
+import tiemens.clock.tick.VisibilityWatcher;
+
+/**
+ * Many clocks (e.g. one per time zone) in a grid, drawn as one component.
+ * 
+ * All tiles share the ClockTickService tick, one glyph set and one back buffer.
+ * Each tick is one render pass: every tile's time is formatted (once per
+ * distinct generator), only the cells that changed are redrawn into the
+ * back buffer, and one repaint covers the union of changed areas.
+ * The tick then copies just the changed rows into a front image, which
+ * is all paint reads, so the EDT waits at most for that copy, never for a
+ * render pass.
+ * 
+ * A started wall leaves the tick while it can not be seen (hidden, or its
+ * window iconified), and renders the current time as soon as it is shown.
+ * 
+ * @author Tim Tiemens
+ */
+public class ClockWall
+    extends Panel
+{
+    private static final long serialVersionUID = 7316522458117465190L;
+
+    private static final int PAD = 4;
+
+    private static class Tile
+    {
+        private final String label;
+        private final TimeStringGenerator generator;
+        private int x;
+        private int y;
+
+        /**
+         * string drawn in the back buffer, and its layout (tile relative);
+         * null until the tile is first drawn
+         */
+        private String shown = null;
+        private DisplayLayout layout = null;
+
+        private Tile(final String inLabel, 
+                     final TimeStringGenerator inGenerator)
+        {
+            label = inLabel;
+            generator = inGenerator;
+        }
+    }
+
+    /**
+     * guards everything below, between the tick thread and the setters
+     */
+    private final Object lock = new Object();
+
+    private final List<Tile> tiles = new ArrayList<Tile>();
+    private final int columns;
+    private ConvertCharacterToImage dig;
+    private Color bg_color = Color.BLACK;
+    private Color label_color = Color.LIGHT_GRAY;
+    private int tile_w;
+    private int tile_h;
+    private int digits_h;
+    private BufferedImage buffer = null;
+    private boolean full_redraw = true;
+
+    /**
+     * guards front, between the tick's copy and paint
+     */
+    private final Object frontLock = new Object();
+
+    /**
+     * buffer as of the last tick, the same size; the only rendering state
+     * paint reads.  Replaced only when the geometry changes.
+     */
+    private BufferedImage front = null;
+
+    /**
+     * size of the grid, published by computeGeometry
+     */
+    private volatile Dimension preferred = new Dimension(0, 0);
+
+    /**
+     * formatted strings of the current tick, by generator; reused
+     */
+    private final Map<TimeStringGenerator, String> formatted =
+            new IdentityHashMap<TimeStringGenerator, String>();
+
+    /**
+     * retains the current digit set while displayed
+     */
+    private final GlyphHold glyphs = new GlyphHold();
+
+    /**
+     * guards started, hidden and subscriber
+     */
+    private final Object lifecycleLock = new Object();
+
+    /**
+     * start() called and stop() not since; the subscription also needs ! hidden
+     */
+    private boolean started = false;
+    private boolean hidden = false;
+    private ClockTickService.Subscriber subscriber = null;
+    private final ClockMetrics metrics = ClockMetrics.create("ClockWall");
+
+    /**
+     * @param dimg digit images, shared by every tile
+     * @param inColumns tiles per row
+     */
+    public ClockWall(final ConvertCharacterToImage dimg, final int inColumns)
+    {
+        if (inColumns < 1)
+        {
+            throw new IllegalArgumentException("columns must be positive, was " + inColumns);
+        }
+        columns = inColumns;
+        dig = dimg;
+        glyphs.set(dig);
+        setLayout(null);
+        computeGeometry();
+        new VisibilityWatcher(this, new VisibilityWatcher.Listener()
+        {
+            public void visibilityChanged(final boolean visible)
+            {
+                setHidden(! visible);
+            }
+        });
+    }
+
+    /**
+     * Add a clock to the wall.
+     * @param label shown under the time, can be null
+     * @param generator formats the time of this clock, whole seconds only; 
+     *          tiles may share one
+     * @throws IllegalArgumentException for a sub-second generator, as the
+     *          wall ticks once a second
+     */
+    public void addClock(final String label, 
+                         final TimeStringGenerator generator)
+    {
+        TemplateFormatter.requireWholeSecond(generator);
+        synchronized (lock)
+        {
+            tiles.add(new Tile(label, generator));
+            computeGeometry();
+        }
+        invalidate();
+    }
+
+    /**
+     * Set the digits for every tile, and the color behind them.
+     * @param c2image converter
+     * @param background color behind the digits, null to keep the current one
+     */
+    public void setDigitsImages(final ConvertCharacterToImage c2image, 
+                                final Color background)
+    {
+        glyphs.set(c2image);
+        synchronized (lock)
+        {
+            dig = c2image;
+            if (background != null)
+            {
+                bg_color = background;
+            }
+            computeGeometry();
+        }
+        invalidate();
+    }
+
+    public int getClockCount()
+    {
+        synchronized (lock)
+        {
+            return tiles.size();
+        }
+    }
+
+    /**
+     * @return paint time and frame jitter measurements for this wall
+     */
+    public ClockMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Start ticking with the shared ClockTickService.
+     */
+    public void start()
+    {
+        synchronized (lifecycleLock)
+        {
+            started = true;
+            if (! hidden)
+            {
+                subscribe();
+            }
+        }
+    }
+
+    public void stop()
+    {
+        synchronized (lifecycleLock)
+        {
+            started = false;
+            unsubscribe();
+        }
+    }
+
+    private void setHidden(final boolean inHidden)
+    {
+        synchronized (lifecycleLock)
+        {
+            hidden = inHidden;
+            if (! started)
+            {
+                return;
+            }
+            if (hidden)
+            {
+                unsubscribe();
+            }
+            else if (subscriber == null)
+            {
+                tick(TimeSource.getDefault().currentTimeMillis());
+                subscribe();
+            }
+        }
+    }
+
+    private void subscribe()
+    {
+        if (subscriber != null)
+        {
+            return;
+        }
+        subscriber = new ClockTickService.Subscriber()
+        {
+            public void tick(final long secondMillis, final String text)
+            {
+                ClockWall.this.tick(secondMillis);
+            }
+        };
+        ClockTickService.getShared().subscribe(null, subscriber);
+    }
+
+    private void unsubscribe()
+    {
+        if (subscriber != null)
+        {
+            ClockTickService.getShared().unsubscribe(subscriber);
+            subscriber = null;
+        }
+    }
+
+    /**
+     * One render pass: bring every tile up to millis, drawing only the
+     * cells that changed, then request one repaint of the changed area.
+     * @param millis time to show
+     */
+    public void tick(final long millis)
+    {
+        metrics.tick(millis);
+        Rectangle dirty = null;
+        synchronized (lock)
+        {
+            if (buffer == null)
+            {
+                buffer = new BufferedImage(Math.max(1, columns * tile_w), 
+                                           Math.max(1, rows() * tile_h), 
+                                           BufferedImage.TYPE_INT_RGB);
+                final BufferedImage nextFront = new BufferedImage(buffer.getWidth(), 
+                                                                  buffer.getHeight(), 
+                                                                  BufferedImage.TYPE_INT_RGB);
+                synchronized (frontLock)
+                {
+                    front = nextFront;
+                }
+                full_redraw = true;
+            }
+
+            Graphics2D g = buffer.createGraphics();
+            try
+            {
+                formatted.clear();
+                if (full_redraw)
+                {
+                    g.setColor(bg_color);
+                    g.fillRect(0, 0, buffer.getWidth(), buffer.getHeight());
+                }
+                for (Tile tile : tiles)
+                {
+                    String info = formatted.get(tile.generator);
+                    if (info == null)
+                    {
+                        info = tile.generator.getTimeString(millis);
+                        formatted.put(tile.generator, info);
+                    }
+                    Rectangle changed = drawTile(g, tile, info);
+                    if (changed != null)
+                    {
+                        dirty = (dirty == null) ? changed : dirty.union(changed);
+                    }
+                }
+                if (full_redraw)
+                {
+                    dirty = new Rectangle(0, 0, buffer.getWidth(), buffer.getHeight());
+                    full_redraw = false;
+                }
+            }
+            finally
+            {
+                g.dispose();
+            }
+            if (dirty != null)
+            {
+                copyRows(dirty);
+            }
+        }
+
+        if (dirty != null)
+        {
+            repaint(dirty.x, dirty.y, dirty.width, dirty.height);
+        }
+    }
+
+    @Override
+    public void addNotify()
+    {
+        super.addNotify();
+        glyphs.resume();
+        metrics.register();
+    }
+
+    @Override
+    public void removeNotify()
+    {
+        metrics.unregister();
+        glyphs.suspend();
+        super.removeNotify();
+    }
+
+    @Override
+    public Dimension getPreferredSize()
+    {
+        return new Dimension(preferred);
+    }
+
+    @Override
+    public void update(Graphics g)
+    {
+        paint(g);
+    }
+
+    @Override
+    public void paint(Graphics g)
+    {
+        final long start = metrics.paintStart();
+        synchronized (frontLock)
+        {
+            if (front != null)
+            {
+                g.drawImage(front, 0, 0, this);
+            }
+        }
+        metrics.shown();
+        metrics.paintEnd(start);
+    }
+
+    /**
+     * Bring one tile up to info.
+     * @return changed area in wall coordinates, null if nothing changed
+     */
+    private Rectangle drawTile(final Graphics2D g, final Tile tile, final String info)
+    {
+        final boolean whole = full_redraw || 
+                (tile.layout == null) || 
+                ! tile.layout.fitsInfo(info) ||
+                (tile.layout.getDigits() != dig);
+        if (whole)
+        {
+            tile.layout = DisplayLayout.compute(info, info.length(), dig, dig, null, tile_w, digits_h);
+            g.setColor(bg_color);
+            g.fillRect(tile.x, tile.y, tile_w, tile_h);
+            for (int i = 0, n = info.length(); i < n; i++)
+            {
+                drawCell(g, tile, info, i);
+            }
+            if (tile.label != null)
+            {
+                FontMetrics fm = g.getFontMetrics();
+                g.setColor(label_color);
+                g.drawString(tile.label, 
+                             tile.x + (tile_w - fm.stringWidth(tile.label)) / 2,
+                             tile.y + digits_h + fm.getAscent());
+            }
+            tile.shown = info;
+            return new Rectangle(tile.x, tile.y, tile_w, tile_h);
+        }
+
+        Rectangle changed = tile.layout.getDirtyArea(tile.shown, info);
+        tile.shown = info;
+        if ((changed == null) || changed.isEmpty())
+        {
+            return null;
+        }
+        for (int i = 0, n = info.length(); i < n; i++)
+        {
+            final int x = tile.x + tile.layout.getCellX(i);
+            if ((x >= tile.x + changed.x) && (x < tile.x + changed.x + changed.width))
+            {
+                g.setColor(bg_color);
+                g.fillRect(x, tile.y + tile.layout.getDigitsY(), 
+                           tile.layout.getCellWidth(i), tile.layout.getDigitsHeight());
+                drawCell(g, tile, info, i);
+            }
+        }
+        changed.translate(tile.x, tile.y);
+        return changed;
+    }
+
+    private void drawCell(final Graphics2D g, final Tile tile, final String info, final int i)
+    {
+        Image image = dig.convert(info.charAt(i));
+        if (image != null)
+        {
+            g.drawImage(image, 
+                        tile.x + tile.layout.getCellX(i), 
+                        tile.y + tile.layout.getDigitsY(), 
+                        null);
+        }
+    }
+
+    /**
+     * Copy the dirty rectangle of buffer into front; called under lock.
+     * @param dirty changed area, in wall coordinates
+     */
+    private void copyRows(final Rectangle dirty)
+    {
+        final int width = buffer.getWidth();
+        final Rectangle r = dirty.intersection(new Rectangle(0, 0, width, buffer.getHeight()));
+        if (r.isEmpty())
+        {
+            return;
+        }
+        final int[] from = ((DataBufferInt) buffer.getRaster().getDataBuffer()).getData();
+        synchronized (frontLock)
+        {
+            final int[] to = ((DataBufferInt) front.getRaster().getDataBuffer()).getData();
+            for (int y = r.y, end = r.y + r.height; y < end; y++)
+            {
+                final int at = (y * width) + r.x;
+                System.arraycopy(from, at, to, at, r.width);
+            }
+        }
+    }
+
+    private int rows()
+    {
+        return (tiles.size() + columns - 1) / columns;
+    }
+
+    /**
+     * Size every tile for the widest time and place tiles in the grid;
+     * the next tick redraws everything.
+     */
+    private void computeGeometry()
+    {
+        String biggest = new MainSimpleClock.SimpleTimeFormatGenerator().getBiggestString();
+        for (Tile tile : tiles)
+        {
+            if (tile.generator.getBiggestString().length() > biggest.length())
+            {
+                biggest = tile.generator.getBiggestString();
+            }
+        }
+        Dimension d = HeadlessClockRenderer.measure(biggest, dig);
+        digits_h = d.height + PAD;
+        tile_w = d.width + 2 * PAD;
+        tile_h = digits_h + 14;
+        for (int i = 0; i < tiles.size(); i++)
+        {
+            Tile tile = tiles.get(i);
+            tile.x = (i % columns) * tile_w;
+            tile.y = (i / columns) * tile_h;
+            tile.layout = null;
+        }
+        buffer = null;
+        full_redraw = true;
+        preferred = new Dimension(columns * tile_w, rows() * tile_h);
+    }
+}
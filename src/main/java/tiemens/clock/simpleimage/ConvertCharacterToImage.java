@@ -35,9 +35,11 @@ package tiemens.clock.simpleimage;
 import java.awt.Color;
 import java.awt.Image;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class ConvertCharacterToImage
 {
@@ -66,6 +68,14 @@ public class ConvertCharacterToImage
         return preferBackgroundColor;
     }
 
+    /**
+     * @return every character this converter has an image for
+     */
+    public Set<Character> getCharacters()
+    {
+        return Collections.unmodifiableSet(char2image.keySet());
+    }
+
     public Image convert(final Character c)
     {
         return char2image.get(c);
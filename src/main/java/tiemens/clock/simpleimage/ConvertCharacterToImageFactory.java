@@ -39,13 +39,14 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.jar.JarInputStream;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 
 import javax.imageio.ImageIO;
@@ -113,6 +114,37 @@ public class ConvertCharacterToImageFactory
         public String getHumanName() {
             return this.name();
         }
+        /**
+         * @return the name without its size, e.g. "led__green" for both
+         *         led_12x21__green and led_9x15__green
+         */
+        public String getFamily()
+        {
+            return this.name().replaceFirst("_[0-9]+x[0-9]+", "");
+        }
+        /**
+         * @return native glyph width in pixels, taken from the name
+         */
+        public int getGlyphWidth()
+        {
+            return parseSize(1);
+        }
+        /**
+         * @return native glyph height in pixels, taken from the name
+         */
+        public int getGlyphHeight()
+        {
+            return parseSize(2);
+        }
+        private int parseSize(final int group)
+        {
+            Matcher m = Pattern.compile("_([0-9]+)x([0-9]+)").matcher(this.name());
+            if (! m.find())
+            {
+                throw new IllegalStateException("No size in type name " + this.name());
+            }
+            return Integer.parseInt(m.group(group));
+        }
     }
     
     public static enum ImgSlot
@@ -163,14 +195,37 @@ public class ConvertCharacterToImageFactory
 
     public static ConvertCharacterToImage getDefault()
     {
-        //return privateCreate(Types.led_12x21__green);
-        return privateCreate(Types.lcd_14x23);
+        //return get(Types.led_12x21__green);
+        return get(Types.lcd_14x23);
     }
     
     public static ConvertCharacterToImage getHand26x31()
     {
-        return privateCreate(Types.hand_26x31);
+        return get(Types.hand_26x31);
+    }
+
+    /**
+     * @param type set wanted
+     * @return the set shared through {@link GlyphRegistry#getShared()}
+     */
+    public static ConvertCharacterToImage get(final Types type)
+    {
+        return GlyphRegistry.getShared().get(type);
+    }
+
+    /**
+     * Decode a fresh copy of a set; only {@link GlyphRegistry} should call this.
+     * The resource loader is not thread-safe, so decodes take turns.
+     */
+    /*default*/ static ConvertCharacterToImage loadUncached(final Types type)
+    {
+        synchronized (loadLock)
+        {
+            return privateCreate(type);
+        }
     }
+
+    private static final Object loadLock = new Object();
     
     private static ConvertCharacterToImage privateCreate(final Types intype)
     {
@@ -333,25 +388,29 @@ public class ConvertCharacterToImageFactory
         return null;
     }
 
+    /**
+     * @return every set, in Types order; each set is fetched from
+     *         the registry as the iterator reaches it
+     */
     public static Iterator<ConvertCharacterToImage> iterateAll()
     {
-        List<ConvertCharacterToImage> all = getAll();
-        return all.iterator();
-    }
-
-    private static List<ConvertCharacterToImage> all;
-    private static synchronized List<ConvertCharacterToImage> getAll()
-    {
-        if (all == null)
+        final Iterator<Types> types = Arrays.asList(Types.values()).iterator();
+        return new Iterator<ConvertCharacterToImage>()
         {
-            List<ConvertCharacterToImage> list = new ArrayList<ConvertCharacterToImage>();
-            
-            for (Types type : Types.values())
+            public boolean hasNext()
             {
-                list.add(privateCreate(type));
+                return types.hasNext();
             }
-            all = list;
-        }
-        return all;
+
+            public ConvertCharacterToImage next()
+            {
+                return get(types.next());
+            }
+
+            public void remove()
+            {
+                throw new UnsupportedOperationException("remove");
+            }
+        };
     }
 }
@@ -0,0 +1,317 @@
+/*========================================================================
+ * DisplayLayout.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import java.awt.Image;
+import java.awt.Rectangle;
+
+/**
+ * Where {@link DisplayPanel} draws things: digits and background image
+ * centered in a w x h area, the digits as a row of cells.
+ * 
+ * Immutable.  A layout stays valid for any string of the same length whose
+ * glyphs have the same widths, so it only needs recomputing when the
+ * inputs in {@link #fits} change.
+ * 
+ * @author Tim Tiemens
+ */
+public final class DisplayLayout
+{
+    /**
+     * @param info string to display, already cut to numDigits
+     * @param numDigits number of display digits
+     * @param baseDigits digit images asked for
+     * @param digits digit images to draw (baseDigits, or baseDigits scaled)
+     * @param background background image, can be null
+     * @param w total display width
+     * @param h total display height
+     * @return layout of info in w x h
+     */
+    public static DisplayLayout compute(final String info,
+                                        final int numDigits,
+                                        final ConvertCharacterToImage baseDigits,
+                                        final ConvertCharacterToImage digits,
+                                        final Image background,
+                                        final int w,
+                                        final int h)
+    {
+        return new DisplayLayout(info, numDigits, baseDigits, digits, background, w, h);
+    }
+
+    private final int numDigits;
+    private final ConvertCharacterToImage baseDigits;
+    private final ConvertCharacterToImage digits;
+    private final Image background;
+    private final int w;
+    private final int h;
+    private final int dw;
+    private final int dh;
+    private final int dx;
+    private final int dy;
+    private final int bw;
+    private final int bh;
+    private final int bx;
+    private final int by;
+    private final int[] cellX;
+    private final int[] cellW;
+
+    private DisplayLayout(final String info,
+                          final int inNumDigits,
+                          final ConvertCharacterToImage inBaseDigits,
+                          final ConvertCharacterToImage inDigits,
+                          final Image inBackground,
+                          final int inW,
+                          final int inH)
+    {
+        numDigits = inNumDigits;
+        baseDigits = inBaseDigits;
+        digits = inDigits;
+        background = inBackground;
+        w = inW;
+        h = inH;
+
+        //consider background image size
+        if (background != null) 
+        {
+            bw = background.getWidth(null);
+            bh = background.getHeight(null);
+        }
+        else
+        {
+            bw = 0;
+            bh = 0;
+        }
+
+        //calculate string size
+        final int n = (info != null) ? info.length() : 0;
+        cellX = new int[n];
+        cellW = new int[n];
+        int sumw = 0;
+        int maxh = 0;
+        for (int i = 0; i < n; i++)
+        {
+            Image image = digits.convert(info.charAt(i));
+            cellX[i] = sumw;
+            if (image != null) 
+            {
+                cellW[i] = image.getWidth(null);
+                sumw += cellW[i]; //sum width
+                maxh = Math.max(maxh, image.getHeight(null)); //calc highest digit
+            }
+        }
+        dw = sumw;
+        dh = maxh;
+
+        //calc coordinates (center objects)
+        dx = (w - dw) / 2;
+        dy = (h - dh) / 2;
+        bx = (w - bw) / 2;
+        by = (h - bh) / 2;
+        for (int i = 0; i < n; i++)
+        {
+            cellX[i] += dx;
+        }
+    }
+
+    /**
+     * @return true if this layout is the one compute() would give for
+     *         these inputs; checks glyph widths, allocates nothing
+     */
+    public boolean fits(final String info,
+                        final int inNumDigits,
+                        final ConvertCharacterToImage inBaseDigits,
+                        final Image inBackground,
+                        final int inW,
+                        final int inH)
+    {
+        if ((inBaseDigits != baseDigits) || (inBackground != background) ||
+            (inNumDigits != numDigits) || (inW != w) || (inH != h))
+        {
+            return false;
+        }
+        return fitsInfo(info);
+    }
+
+    /**
+     * @param info string to display
+     * @return true if info has one glyph per cell, each the cell's width
+     */
+    public boolean fitsInfo(final String info)
+    {
+        final int n = cellW.length;
+        if (info == null)
+        {
+            return n == 0;
+        }
+        if (info.length() != n)
+        {
+            return false;
+        }
+        for (int i = 0; i < n; i++)
+        {
+            Image image = digits.convert(info.charAt(i));
+            if ((image == null) || (image.getWidth(null) != cellW[i]))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param before string currently shown
+     * @param after string to show next
+     * @return area of the cells that differ, empty if none, 
+     *         null if either string does not fit this layout
+     */
+    public Rectangle getDirtyArea(final String before, final String after)
+    {
+        if (! fitsInfo(before) || ! fitsInfo(after))
+        {
+            return null;
+        }
+        // cell x can be 0 or negative (fit mode centers a string wider
+        // than the panel), so "nothing changed" is its own flag
+        boolean changed = false;
+        int x0 = 0;
+        int x1 = 0;
+        for (int i = 0; i < cellW.length; i++)
+        {
+            if (before.charAt(i) != after.charAt(i))
+            {
+                if (! changed)
+                {
+                    x0 = cellX[i];
+                    changed = true;
+                }
+                x1 = cellX[i] + cellW[i];
+            }
+        }
+        return changed ? new Rectangle(x0, dy, x1 - x0, dh) : new Rectangle();
+    }
+
+    /**
+     * @return digit images to draw (possibly scaled)
+     */
+    public ConvertCharacterToImage getDigits()
+    {
+        return digits;
+    }
+
+    public int getCellCount()
+    {
+        return cellW.length;
+    }
+
+    /**
+     * @param i cell index
+     * @return X of the cell's left edge
+     */
+    public int getCellX(final int i)
+    {
+        return cellX[i];
+    }
+
+    /**
+     * @param i cell index
+     * @return width of the cell
+     */
+    public int getCellWidth(final int i)
+    {
+        return cellW[i];
+    }
+
+    /**
+     * @return total display width
+     */
+    public int getWidth()
+    {
+        return w;
+    }
+
+    /**
+     * @return total display height
+     */
+    public int getHeight()
+    {
+        return h;
+    }
+
+    /**
+     * @return digits width
+     */
+    public int getDigitsWidth()
+    {
+        return dw;
+    }
+
+    /**
+     * @return digits height
+     */
+    public int getDigitsHeight()
+    {
+        return dh;
+    }
+
+    /**
+     * @return digits X start coordinate
+     */
+    public int getDigitsX()
+    {
+        return dx;
+    }
+
+    /**
+     * @return digits Y start coordinate
+     */
+    public int getDigitsY()
+    {
+        return dy;
+    }
+
+    /**
+     * @return background image X start coordinate
+     */
+    public int getBackgroundX()
+    {
+        return bx;
+    }
+
+    /**
+     * @return background image Y start coordinate
+     */
+    public int getBackgroundY()
+    {
+        return by;
+    }
+}
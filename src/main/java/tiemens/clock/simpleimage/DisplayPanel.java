@@ -33,99 +33,304 @@
 package tiemens.clock.simpleimage;
 
 
+import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
 import java.awt.Image;
 import java.awt.Panel;
-import java.util.List;
+import java.awt.Rectangle;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.image.VolatileImage;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 
 import javax.swing.SwingUtilities;
 
+import tiemens.clock.metrics.ClockMetrics;
+import tiemens.clock.tick.TimeSource;
+
 /**
  * 
  * @author Tim Tiemens
  */
 public class DisplayPanel
     extends Panel 
+    implements ClockDisplay
 {
     private static final long serialVersionUID = -2829153743268504589L;
 
     private static Logger logger = Logger.getLogger("DisplayPanel");
     
     /**
-     * background image, can be null.
+     * Everything paint needs to know.  Immutable: setters, on any thread,
+     * swap in a changed copy, so paint always reads one consistent set of 
+     * values without locking.
+     */
+    private static final class RenderState
+    {
+        /**
+         * current string to display, cut to num_digits
+         */
+        private final String info;
+        
+        /**
+         * background image, can be null.
+         */
+        private final Image img_bg;
+        
+        /**
+         * digit images, can not be null.
+         */
+        private final ConvertCharacterToImage dig;
+        
+        /**
+         * color behind the digits, null for the component background
+         */
+        private final Color bg_color;
+        
+        /**
+         * number of display digits
+         */
+        private final int num_digits;
+        
+        /**
+         * total display width and height; the component size when scale_to_fit
+         */
+        private final int w;
+        private final int h;
+        
+        /**
+         * if true, follow the component size and scale the digits to fill it
+         */
+        private final boolean scale_to_fit;
+        
+        /**
+         * composited glyph runs, null to draw glyph by glyph
+         */
+        private final GlyphRunCache run_cache;
+
+        private RenderState(final String inInfo,
+                            final Image inImgBg,
+                            final ConvertCharacterToImage inDig,
+                            final Color inBgColor,
+                            final int inNumDigits,
+                            final int inW,
+                            final int inH,
+                            final boolean inScaleToFit,
+                            final GlyphRunCache inRunCache)
+        {
+            info = ((inInfo != null) && (inInfo.length() > inNumDigits))
+                    ? inInfo.substring(0, Math.max(0, inNumDigits)) // resize string to max num of digits
+                    : inInfo;
+            img_bg = inImgBg;
+            dig = inDig;
+            bg_color = inBgColor;
+            num_digits = inNumDigits;
+            w = inW;
+            h = inH;
+            scale_to_fit = inScaleToFit;
+            run_cache = inRunCache;
+        }
+
+        private RenderState withInfo(final String inInfo)
+        {
+            return new RenderState(inInfo, img_bg, dig, bg_color, num_digits, w, h, scale_to_fit, run_cache);
+        }
+
+        private RenderState withBackgroundImage(final Image inImgBg)
+        {
+            return new RenderState(info, inImgBg, dig, bg_color, num_digits, w, h, scale_to_fit, run_cache);
+        }
+
+        private RenderState withDigits(final ConvertCharacterToImage inDig, final Color inBgColor)
+        {
+            return new RenderState(info, img_bg, inDig, inBgColor, num_digits, w, h, scale_to_fit, run_cache);
+        }
+
+        private RenderState withNumDigits(final int inNumDigits)
+        {
+            return new RenderState(info, img_bg, dig, bg_color, inNumDigits, w, h, scale_to_fit, run_cache);
+        }
+
+        private RenderState withSize(final int inW, final int inH)
+        {
+            return new RenderState(info, img_bg, dig, bg_color, num_digits, inW, inH, scale_to_fit, run_cache);
+        }
+
+        private RenderState withScaleToFit(final boolean inScaleToFit)
+        {
+            return new RenderState(info, img_bg, dig, bg_color, num_digits, w, h, inScaleToFit, run_cache);
+        }
+
+        private RenderState withRunCache(final GlyphRunCache inRunCache)
+        {
+            return new RenderState(info, img_bg, dig, bg_color, num_digits, w, h, scale_to_fit, inRunCache);
+        }
+    }
+
+    /**
+     * A change to the render state, applied by {@link DisplayPanel#swap}.
+     */
+    private static abstract class StateChange
+    {
+        abstract RenderState apply(RenderState s);
+    }
+
+    /**
+     * retains the current digit set while displayed
+     */
+    private final GlyphHold glyphs = new GlyphHold();
+
+    /**
+     * latest render state
      */
-    private Image img_bg = null;
+    private final AtomicReference<RenderState> state;
     
     /**
-     * digit images, can not be null.
+     * layout of the latest state seen; recomputed only when its inputs change
+     */
+    private volatile DisplayLayout layout = null;
+
+    /**
+     * A set scaled by prepareDigits, and the size it was scaled for.
+     */
+    private static final class Prepared
+    {
+        private final int num_digits;
+        private final int w;
+        private final int h;
+        private final ConvertCharacterToImage digits;
+
+        private Prepared(final int inNumDigits, final int inW, final int inH, 
+                         final ConvertCharacterToImage inDigits)
+        {
+            num_digits = inNumDigits;
+            w = inW;
+            h = inH;
+            digits = inDigits;
+        }
+    }
+
+    /**
+     * sets scaled ahead of time, by the set they were scaled from; weak,
+     * so each goes with its set (e.g. a finished cross-fade's frames)
      */
-    private ConvertCharacterToImage dig = null;
+    private final Map<ConvertCharacterToImage, Prepared> prepared = 
+            new WeakHashMap<ConvertCharacterToImage, Prepared>();
+    
+    // the fields below are only used by paint, on the EDT
     
     /**
-     * images to display in order.
+     * images to display in order, refilled in place by each paint.
      */
-    private Image[] display_images;
+    private Image[] display_images = new Image[0];
     
     /**
-     * current string to display
+     * back buffer kept between paints, a VolatileImage when the peer 
+     * supports one; null until the first paint
      */
-    private String current_info;
+    private Image back_buffer = null;
     
     /**
-     * number of display digits
+     * graphics for back_buffer, kept as long as back_buffer
      */
-    private int num_digits;
+    private Graphics back_graphics = null;
     
     /**
-     * total display width
+     * graphics configuration back_buffer was created for
      */
-    private int w;
+    private GraphicsConfiguration back_buffer_gc = null;
     
     /**
-     * total display height
+     * if true, the next paint redraws the whole back buffer;
+     * otherwise only the cells whose image changed are redrawn
      */
-    private int h;
+    private boolean full_redraw = true;
     
     /**
-     * digits width
+     * string, images, layout and background color currently drawn 
+     * in the back buffer
      */
-    private int dw;
+    private String painted_info = null;
+    private Image[] painted_images = new Image[0];
+    private DisplayLayout painted_layout = null;
+    private Color painted_bg = null;
+    
+    // repaint scheduling, any thread
     
     /**
-     * digits height
+     * paint time and frame jitter, see ClockMetrics
      */
-    private int dh;
+    private final ClockMetrics metrics = ClockMetrics.create("DisplayPanel");
     
     /**
-     * digits X start coordinate
+     * true while repaint_task is posted to the EDT and has not run
      */
-    private int dx;
+    private final AtomicBoolean repaint_pending = new AtomicBoolean(false);
     
     /**
-     * digits Y start coordinate
+     * repaint requests folded into an already posted repaint_task
      */
-    private int dy;
+    private final AtomicLong repaints_coalesced = new AtomicLong();
     
     /**
-     * background image width
+     * guards the pending repaint area below
      */
-    private int bw;
+    private final Object repaint_lock = new Object();
     
     /**
-     * background image height
+     * pending repaint area: the whole panel, or the union of 
+     * [x0, x1) x [y0, y1), empty when x1 <= x0
      */
-    private int bh;
+    private boolean pending_full = false;
+    private int pending_x0;
+    private int pending_y0;
+    private int pending_x1;
+    private int pending_y1;
     
     /**
-     * background image X start coordinate
+     * System.nanoTime() when repaint_task was posted, 0 if not measured
      */
-    private int bx;
+    private volatile long repaint_posted = 0L;
     
     /**
-     * background image Y start coordinate
+     * the one EDT task that turns pending requests into a repaint
      */
-    private int by;
+    private final Runnable repaint_task = new Runnable()
+    {
+        public void run()
+        {
+            metrics.queueRun(repaint_posted);
+            repaint_pending.set(false);
+
+            boolean full;
+            int x0, y0, x1, y1;
+            synchronized (repaint_lock) 
+            {
+                full = pending_full;
+                x0 = pending_x0;
+                y0 = pending_y0;
+                x1 = pending_x1;
+                y1 = pending_y1;
+                pending_full = false;
+                pending_x0 = pending_y0 = pending_x1 = pending_y1 = 0;
+            }
+
+            if (full) 
+            {
+                repaint();
+            }
+            else if (x1 > x0) 
+            {
+                repaint(x0, y0, x1 - x0, y1 - y0);
+            }
+        }
+    };
     
     /**
      * Build a void panel.
@@ -151,15 +356,24 @@ public class DisplayPanel
                         int aw, 
                         int ah) 
     {
-        num_digits = numdig;
-        current_info = info;
-        img_bg = backgroundimage; //background image
-        dig = dimg; 
-        w = aw;
-        h = ah;
+        state = new AtomicReference<RenderState>(
+                new RenderState(info, backgroundimage, dimg, null, numdig, aw, ah, false, null));
+        glyphs.set(dimg);
         
         setLayout(null);
         resize();
+
+        addComponentListener(new ComponentAdapter()
+        {
+            @Override
+            public void componentResized(ComponentEvent e)
+            {
+                if (state.get().scale_to_fit) 
+                {
+                    followComponentSize();
+                }
+            }
+        });
     }
     
     /**
@@ -177,28 +391,58 @@ public class DisplayPanel
      */
     public void setInfo(String info) 
     {
-        current_info = info;
-        runRepaintLater();
+        setInfo(info, TimeSource.getDefault().currentTimeMillis());
     }
 
-    private void runRepaintLater()
+    /**
+     * Set string to display
+     * @param info string to display
+     * @param wallMillis the time info was formatted for
+     */
+    public void setInfo(String info, long wallMillis) 
     {
-        SwingUtilities.invokeLater(new Runnable()
+        RenderState prev;
+        RenderState next;
+        do 
         {
-            public void run()
-            {
-                repaint();
-            }
-        });
+            prev = state.get();
+            next = prev.withInfo(info);
+        } while (! state.compareAndSet(prev, next));
+        metrics.tick(wallMillis);
+
+        // repaint just the changed cells, if the current layout still holds
+        // (the overlay needs the whole panel)
+        final DisplayLayout l = layout;
+        Rectangle dirty = null;
+        if ((l != null) && ! metrics.isOverlayVisible() &&
+            l.fits(next.info, next.num_digits, next.dig, next.img_bg, next.w, next.h)) 
+        {
+            dirty = l.getDirtyArea(prev.info, next.info);
+        }
+
+        if (dirty == null) 
+        {
+            runRepaintLater();
+        }
+        else if (! dirty.isEmpty()) 
+        {
+            runRepaintLater(dirty);
+        }
     }
 
     /**
      * Set the display background
      * @param image background image
      */
-    public void setBackgroundImage(Image image) 
+    public void setBackgroundImage(final Image image) 
     {
-        img_bg = image; //background image
+        swap(new StateChange()
+        {
+            RenderState apply(RenderState s)
+            {
+                return s.withBackgroundImage(image);
+            }
+        });
         runRepaintLater();
     }
 
@@ -206,9 +450,15 @@ public class DisplayPanel
      * Set number of display digits
      * @param numdig number of digits on display
      */
-    public void setNumDigits(int numdig) 
+    public void setNumDigits(final int numdig) 
     {
-        num_digits = numdig;
+        swap(new StateChange()
+        {
+            RenderState apply(RenderState s)
+            {
+                return s.withNumDigits(numdig);
+            }
+        });
         runRepaintLater();
     }
 
@@ -218,79 +468,279 @@ public class DisplayPanel
      */
     public void setDigitsImages(ConvertCharacterToImage c2image) 
     {
-        dig = c2image;
-        runRepaintLater();
+        setDigitsImages(c2image, state.get().bg_color);
     }
 
     /**
-     * Creates the Panel's peer.
-     * The peer allows you to modify the appearance of the panel without changing its functionality.
+     * Set the display digits, and the color behind them, in one step,
+     * so no paint shows the new digits on the old color.
+     * @param c2image converter
+     * @param background color behind the digits, null for the component background
      */
-    public synchronized void addNotify() 
+    public void setDigitsImages(final ConvertCharacterToImage c2image, 
+                                final Color background) 
     {
-        resize();
-        super.addNotify();
+        glyphs.set(c2image);
+        swap(new StateChange()
+        {
+            RenderState apply(RenderState s)
+            {
+                return s.withDigits(c2image, background);
+            }
+        });
+        runRepaintLater();
     }
 
     /**
-     * Resize the display
+     * Scale dig for the current size now, so that setting it later (from
+     * a cross-fade, say) does not scale on the EDT.  Does nothing unless 
+     * scaling to fit.  Call off the EDT; sets are kept only while dig is
+     * referenced elsewhere.
+     * @param dig set about to be given to setDigitsImages
      */
-    public void resize() 
+    public void prepareDigits(final ConvertCharacterToImage dig) 
     {
-        bw = 0;
-        bh = 0;
-        bx = 0;
-        by = 0;
-        dw = 0;
-        dh = 0;
-        dx = 0;
-        dy = 0; //reset variables
+        final RenderState s = state.get();
+        if (! s.scale_to_fit) 
+        {
+            return;
+        }
+        synchronized (prepared) 
+        {
+            final Prepared p = prepared.get(dig);
+            if ((p != null) && (p.num_digits == s.num_digits) && (p.w == s.w) && (p.h == s.h)) 
+            {
+                return;
+            }
+        }
+        final ConvertCharacterToImage digits = 
+                ScaledGlyphCache.getShared().prepareToFit(dig, s.num_digits, s.w, s.h);
+        synchronized (prepared) 
+        {
+            prepared.put(dig, new Prepared(s.num_digits, s.w, s.h, digits));
+        }
+    }
 
-        //consider background image size
-        if (img_bg != null) 
+    /**
+     * Follow the component size, and scale the digits to fill it.
+     * Each new size costs one rescale per glyph, see {@link ScaledGlyphCache}.
+     * @param fit true to scale, false to draw digits at their native size
+     */
+    public void setScaleToFit(final boolean fit) 
+    {
+        swap(new StateChange()
+        {
+            RenderState apply(RenderState s)
+            {
+                return s.withScaleToFit(fit);
+            }
+        });
+        if (fit) 
         {
-            bw = (int) img_bg.getWidth(this);
-            bh = (int) img_bg.getHeight(this);
+            followComponentSize();
         }
+        runRepaintLater();
+    }
 
-        //calculate string size
-        if (current_info != null) 
+    /**
+     * Draw through a glyph run cache, which cuts a tick to about
+     * two drawImage calls.
+     * @param cache run cache for this panel only, null to draw glyph by glyph
+     */
+    public void setGlyphRunCache(final GlyphRunCache cache) 
+    {
+        swap(new StateChange()
         {
-            if (current_info.length() > num_digits) 
+            RenderState apply(RenderState s)
             {
-                // resize string to max num of digits
-                current_info = current_info.substring(0, num_digits); 
+                return s.withRunCache(cache);
             }
+        });
+        runRepaintLater();
+    }
 
-            List<Image> current_info_images = dig.convert(current_info);
+    /**
+     * @return paint time and frame jitter measurements for this panel
+     */
+    public ClockMetrics getMetrics()
+    {
+        return metrics;
+    }
 
+    /**
+     * @return number of repaint requests folded into an already posted EDT task
+     */
+    public long getCoalescedRepaintCount()
+    {
+        return repaints_coalesced.get();
+    }
 
-            for (Image theimage : current_info_images)
+    /**
+     * Apply a change to the render state, retrying if another thread
+     * changed it first.
+     * @param change change to apply
+     * @return the state that was replaced
+     */
+    private RenderState swap(final StateChange change) 
+    {
+        RenderState prev;
+        RenderState next;
+        do 
+        {
+            prev = state.get();
+            next = change.apply(prev);
+        } while (! state.compareAndSet(prev, next));
+        return prev;
+    }
+
+    private void followComponentSize() 
+    {
+        final int cw = getWidth();
+        final int ch = getHeight();
+        if ((cw > 0) && (ch > 0)) 
+        {
+            swap(new StateChange()
             {
-                if (theimage != null) 
+                RenderState apply(RenderState s)
                 {
-                    dw += theimage.getWidth(this); //sum width
-                    dh = Math.max(dh, theimage.getHeight(this)); //calc highest digit
+                    return s.withSize(cw, ch);
                 }
+            });
+            runRepaintLater();
+        }
+    }
+
+    /**
+     * Request a repaint of the whole panel.
+     */
+    private void runRepaintLater()
+    {
+        synchronized (repaint_lock) 
+        {
+            pending_full = true;
+        }
+        scheduleRepaint();
+    }
+
+    /**
+     * Request a repaint of part of the panel.
+     * @param dirty area to repaint
+     */
+    private void runRepaintLater(final Rectangle dirty)
+    {
+        synchronized (repaint_lock) 
+        {
+            if (pending_x1 <= pending_x0) 
+            {
+                pending_x0 = dirty.x;
+                pending_y0 = dirty.y;
+                pending_x1 = dirty.x + dirty.width;
+                pending_y1 = dirty.y + dirty.height;
+            }
+            else 
+            {
+                pending_x0 = Math.min(pending_x0, dirty.x);
+                pending_y0 = Math.min(pending_y0, dirty.y);
+                pending_x1 = Math.max(pending_x1, dirty.x + dirty.width);
+                pending_y1 = Math.max(pending_y1, dirty.y + dirty.height);
             }
+        }
+        scheduleRepaint();
+    }
 
-            display_images = current_info_images.toArray(new Image[0]);
-            logger.fine("number of images = " + display_images.length);
-            //display_images = new Image[current_info_images.size()];
+    /**
+     * Post repaint_task, unless it is already posted and has not run yet;
+     * a burst of requests from any thread becomes one EDT task.
+     */
+    private void scheduleRepaint()
+    {
+        if (repaint_pending.compareAndSet(false, true)) 
+        {
+            repaint_posted = metrics.queuePosted();
+            SwingUtilities.invokeLater(repaint_task);
+        }
+        else 
+        {
+            repaints_coalesced.incrementAndGet();
         }
+    }
 
-        //display size (background + digits)
-        //h = Math.max(dh, bh);
-        //w = Math.max(dw, bw);
+    /**
+     * Creates the Panel's peer.
+     * The peer allows you to modify the appearance of the panel without changing its functionality.
+     */
+    public void addNotify() 
+    {
+        resize();
+        super.addNotify();
+        glyphs.resume();
+        metrics.register();
+    }
 
-        //calc coordinates (center objects)
-        dx = (int) ( (w - dw) / 2);
-        dy = (int) ( (h - dh) / 2);
-        bx = (int) ( (w - bw) / 2);
-        by = (int) ( (h - bh) / 2);
+    /**
+     * Destroys the Panel's peer, and the back buffer that belongs to it.
+     */
+    public void removeNotify() 
+    {
+        metrics.unregister();
+        glyphs.suspend();
+        disposeBackBuffer();
+        super.removeNotify();
+    }
 
-        logger.fine("DisplayPanel w=" + w + " h=" + h);
-        setSize(w, h);
+    /**
+     * Resize the display: bring the layout up to date with the current
+     * state, and size the panel to it.
+     */
+    public void resize() 
+    {
+        final RenderState s = state.get();
+        final DisplayLayout l = getLayout(s);
+
+        logger.fine("DisplayPanel w=" + l.getWidth() + " h=" + l.getHeight());
+        if (! s.scale_to_fit) 
+        {
+            setSize(l.getWidth(), l.getHeight());
+        }
+    }
+
+    /**
+     * @param s render state
+     * @return layout for s; the cached one unless an input changed
+     */
+    private DisplayLayout getLayout(final RenderState s) 
+    {
+        DisplayLayout l = layout;
+        if ((l == null) || 
+            ! l.fits(s.info, s.num_digits, s.dig, s.img_bg, s.w, s.h)) 
+        {
+            ConvertCharacterToImage digits = s.dig;
+            if (s.scale_to_fit) 
+            {
+                digits = getScaled(s);
+            }
+            l = DisplayLayout.compute(s.info, s.num_digits, s.dig, digits, s.img_bg, s.w, s.h);
+            layout = l;
+        }
+        return l;
+    }
+
+    /**
+     * @param s render state, scaling to fit
+     * @return s.dig scaled to fit: the prepared set if it matches s, 
+     *          else from the shared cache
+     */
+    private ConvertCharacterToImage getScaled(final RenderState s) 
+    {
+        synchronized (prepared) 
+        {
+            final Prepared p = prepared.get(s.dig);
+            if ((p != null) && (p.num_digits == s.num_digits) && (p.w == s.w) && (p.h == s.h)) 
+            {
+                return p.digits;
+            }
+        }
+        return ScaledGlyphCache.getShared().getToFit(s.dig, s.num_digits, s.w, s.h);
     }
 
     /**
@@ -317,31 +767,272 @@ public class DisplayPanel
      * draw button elements (border, image and label) at calculated positions
      *  @param g the graphic area when diplay button elements
      */
-    public synchronized void paint(Graphics g) 
+    public void paint(Graphics g) 
     {
-        resize(); //calculate size and get images to display
+        final long paint_start = metrics.paintStart();
+        // one consistent snapshot for the whole paint
+        final RenderState s = state.get();
+        final DisplayLayout l = getLayout(s);
+        final int w = l.getWidth();
+        final int h = l.getHeight();
+        if ((! s.scale_to_fit) && ((getWidth() != w) || (getHeight() != h))) 
+        {
+            setSize(w, h);
+        }
+        fillDisplayImages(s, l);
+        final Color bg = (s.bg_color != null) ? s.bg_color : getBackground();
 
         //DOUBLE BUFFERING:
-        // Create an off screen image to draw on
-        Image offscreen = createImage(w,h);
-        Graphics bufferGraphics = offscreen.getGraphics();
+        // draw on the long-lived back buffer, and redo the frame 
+        // if a volatile buffer loses its contents before the blit
+        boolean redrew_all = false;
+        do 
+        {
+            Graphics bufferGraphics = getBackBufferGraphics(w, h);
+            if (bufferGraphics == null) 
+            {
+                return; // not displayable yet
+            }
+
+            if (full_redraw || ! paintChangedCells(bufferGraphics, s, l, bg)) 
+            {
+                paintWholeBuffer(bufferGraphics, s, l, bg);
+                redrew_all = true;
+            }
+            rememberPainted(s, l, bg);
+            g.drawImage(back_buffer, 0, 0, this);
+
+            if (backBufferContentsLost()) 
+            {
+                full_redraw = true;
+            }
+        } while (full_redraw);
+        metrics.shown();
+        metrics.drawOverlay(g, 2, h - 2);
+
+        if (redrew_all) 
+        {
+            // a clipped repaint may have found the whole buffer stale
+            Rectangle clip = g.getClipBounds();
+            if ((clip != null) && ! clip.contains(0, 0, w, h)) 
+            {
+                repaint();
+            }
+        }
+        metrics.paintEnd(paint_start);
+    }
 
-        bufferGraphics.clearRect(0, 0, w, h); //clean digits area
+    /**
+     * Point display_images at the glyphs of s.info, reusing the array.
+     */
+    private void fillDisplayImages(final RenderState s, final DisplayLayout l) 
+    {
+        final int n = l.getCellCount();
+        if (display_images.length != n) 
+        {
+            display_images = new Image[n];
+        }
+        final ConvertCharacterToImage digits = l.getDigits();
+        for (int i = 0; i < n; i++) 
+        {
+            display_images[i] = digits.convert(s.info.charAt(i));
+        }
+    }
+
+    /**
+     * Redraw the whole back buffer.
+     */
+    private void paintWholeBuffer(final Graphics bufferGraphics, 
+                                  final RenderState s, 
+                                  final DisplayLayout l,
+                                  final Color bg) 
+    {
+        //clean digits area
+        if (bg != null) 
+        {
+            bufferGraphics.setColor(bg);
+            bufferGraphics.fillRect(0, 0, l.getWidth(), l.getHeight());
+        }
 
         //paint background image
-        if (img_bg != null) 
+        if (s.img_bg != null) 
         {
-            paintImage(bufferGraphics, img_bg, bx, by);
+            paintImage(bufferGraphics, s.img_bg, l.getBackgroundX(), l.getBackgroundY());
         }
 
         //paint display digits
-        int posx = dx; //current digit X position
-        for (Image theimage : display_images)
+        if ((s.run_cache != null) && (s.info != null)) 
+        {
+            s.run_cache.draw(bufferGraphics, s.info, l.getDigits(), 
+                             l.getDigitsX(), l.getDigitsY(), this);
+        }
+        else 
+        {
+            for (int i = 0; i < display_images.length; i++)
+            {
+                //paint current digit image
+                paintImage(bufferGraphics, display_images[i], l.getCellX(i), l.getDigitsY());
+            }
+        }
+        full_redraw = false;
+    }
+
+    /**
+     * Redraw only the cells whose image changed since the last paint.
+     * With a run cache, everything from the first changed cell on is 
+     * redrawn through it, clipped, so a tick that changes only the seconds
+     * is one tile drawImage, and the pixels match a full redraw.
+     * @return false if the back buffer cannot be patched, and must be redrawn
+     */
+    private boolean paintChangedCells(final Graphics bufferGraphics, 
+                                      final RenderState s, 
+                                      final DisplayLayout l,
+                                      final Color bg) 
+    {
+        if ((painted_info == null) || (l != painted_layout) ||
+            (bg == null) || ! bg.equals(painted_bg)) 
+        {
+            return false;
+        }
+
+        final int dy = l.getDigitsY();
+        final int dh = l.getDigitsHeight();
+        if ((s.run_cache != null) && (s.info != null)) 
+        {
+            int first = 0;
+            while ((first < display_images.length) && 
+                   (display_images[first] == painted_images[first])) 
+            {
+                first++;
+            }
+            if (first == display_images.length) 
+            {
+                return true;
+            }
+            final int x = l.getCellX(first);
+            final int right = l.getDigitsX() + l.getDigitsWidth();
+            bufferGraphics.setClip(x, dy, right - x, dh);
+            bufferGraphics.setColor(bg);
+            bufferGraphics.fillRect(x, dy, right - x, dh);
+            if (s.img_bg != null) 
+            {
+                paintImage(bufferGraphics, s.img_bg, l.getBackgroundX(), l.getBackgroundY());
+            }
+            s.run_cache.draw(bufferGraphics, s.info, l.getDigits(), 
+                             l.getDigitsX(), dy, this);
+            bufferGraphics.setClip(null);
+            return true;
+        }
+        for (int i = 0; i < display_images.length; i++) 
+        {
+            final Image next = display_images[i];
+            if (next != painted_images[i]) 
+            {
+                final int x = l.getCellX(i);
+                final int cw = l.getCellWidth(i);
+                bufferGraphics.setClip(x, dy, cw, dh);
+                bufferGraphics.setColor(bg);
+                bufferGraphics.fillRect(x, dy, cw, dh);
+                if (s.img_bg != null) 
+                {
+                    paintImage(bufferGraphics, s.img_bg, l.getBackgroundX(), l.getBackgroundY());
+                }
+                paintImage(bufferGraphics, next, x, dy);
+                bufferGraphics.setClip(null);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Note what the back buffer now holds.
+     */
+    private void rememberPainted(final RenderState s, 
+                                 final DisplayLayout l,
+                                 final Color bg) 
+    {
+        if (painted_images.length != display_images.length) 
+        {
+            painted_images = new Image[display_images.length];
+        }
+        System.arraycopy(display_images, 0, painted_images, 0, display_images.length);
+        painted_info = s.info;
+        painted_layout = l;
+        painted_bg = bg;
+    }
+
+    /**
+     * Get the back buffer graphics, (re)creating the back buffer only when
+     * there is none, the size changed, or the graphics configuration changed.
+     * @param w total display width
+     * @param h total display height
+     * @return graphics for back_buffer, null if the panel is not displayable
+     */
+    private Graphics getBackBufferGraphics(final int w, final int h) 
+    {
+        final GraphicsConfiguration gc = getGraphicsConfiguration();
+
+        if ((back_buffer != null) &&
+            ((back_buffer.getWidth(null) != w) || 
+             (back_buffer.getHeight(null) != h) ||
+             (back_buffer_gc != gc))) 
+        {
+            disposeBackBuffer();
+        }
+
+        if (back_buffer instanceof VolatileImage) 
+        {
+            int valid = ((VolatileImage) back_buffer).validate(gc);
+            if (valid == VolatileImage.IMAGE_INCOMPATIBLE) 
+            {
+                disposeBackBuffer();
+            }
+            else if (valid == VolatileImage.IMAGE_RESTORED) 
+            {
+                back_graphics.dispose();
+                back_graphics = back_buffer.getGraphics();
+                full_redraw = true;
+            }
+        }
+
+        if (back_buffer == null) 
+        {
+            back_buffer = createVolatileImage(w, h);
+            if (back_buffer == null) 
+            {
+                back_buffer = createImage(w, h);
+            }
+            if (back_buffer == null) 
+            {
+                return null;
+            }
+            logger.fine("New back buffer " + back_buffer.getClass().getSimpleName() + 
+                        " w=" + w + " h=" + h);
+            back_buffer_gc = gc;
+            back_graphics = back_buffer.getGraphics();
+            full_redraw = true;
+        }
+        return back_graphics;
+    }
+
+    private boolean backBufferContentsLost() 
+    {
+        return (back_buffer instanceof VolatileImage) && 
+                ((VolatileImage) back_buffer).contentsLost();
+    }
+
+    private void disposeBackBuffer() 
+    {
+        if (back_graphics != null) 
+        {
+            back_graphics.dispose();
+            back_graphics = null;
+        }
+        if (back_buffer != null) 
         {
-            //paint current digit image
-            paintImage(bufferGraphics, theimage, posx, dy);
-            posx += theimage.getWidth(this);
+            back_buffer.flush();
+            back_buffer = null;
         }
-        g.drawImage(offscreen,0,0,this);
+        back_buffer_gc = null;
     }
-}
\ No newline at end of file
+}
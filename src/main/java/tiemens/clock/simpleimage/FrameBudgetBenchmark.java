@@ -0,0 +1,210 @@
+/*========================================================================
+ * FrameBudgetBenchmark.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.TimeZone;
+
+import tiemens.clock.format.TemplateFormatter;
+import tiemens.clock.format.TimeTemplate;
+import tiemens.clock.metrics.LatencyHistogram;
+
+/**
+ * Measures whether formatting and rendering one frame of a sub-second 
+ * clock fits in the frame budget (1/60 s at 60 fps) on one core.
+ * 
+ * For every digit set, one thread formats and renders a run of frames
+ * back to back, times spaced 1/fps apart, the same work an 
+ * ActiveClockCanvas render thread does per frame: getTimeString, the 
+ * digits composed by a HeadlessClockRenderer (GlyphRaster copy), and one
+ * drawImage of them into a frame-sized back buffer.  Only the page flip 
+ * or blit to the screen is left out, as there is no screen headless.
+ * 
+ * Usage: tiemens.clock.Main bench [format=hundredths] [fps=60] [seconds=60]
+ * 
+ * This is a plain timing loop, not a harness: run it on a quiet machine,
+ * and trust the steady state after the warm-up, not single outliers.
+ * 
+ * @author Tim Tiemens
+ */
+public class FrameBudgetBenchmark
+{
+    private final TemplateFormatter formatter;
+    private final int framesPerSecond;
+    private final int seconds;
+
+    /**
+     * @param args format=, fps= and seconds= (simulated seconds per digit set)
+     */
+    public static void main(String[] args)
+    {
+        String format = TimeTemplate.HUNDREDTHS;
+        int fps = 60;
+        int seconds = 60;
+        for (String arg : args)
+        {
+            if (arg.startsWith("format="))
+            {
+                format = arg.substring("format=".length());
+            }
+            else if (arg.startsWith("fps="))
+            {
+                fps = Integer.parseInt(arg.substring("fps=".length()));
+            }
+            else if (arg.startsWith("seconds="))
+            {
+                seconds = Integer.parseInt(arg.substring("seconds=".length()));
+            }
+        }
+
+        FrameBudgetBenchmark bench = 
+                new FrameBudgetBenchmark(TemplateFormatter.forSpec(format, TimeZone.getDefault()),
+                                         fps, seconds);
+        boolean fits = bench.run();
+        System.out.println(fits ? "PASS: every digit set fits the frame budget" :
+                                  "FAIL: over the frame budget");
+    }
+
+    /**
+     * @param inFormatter time format to show
+     * @param inFramesPerSecond target frame rate
+     * @param inSeconds simulated seconds of frames per digit set
+     */
+    public FrameBudgetBenchmark(final TemplateFormatter inFormatter,
+                                final int inFramesPerSecond,
+                                final int inSeconds)
+    {
+        formatter = inFormatter;
+        framesPerSecond = inFramesPerSecond;
+        seconds = inSeconds;
+    }
+
+    /**
+     * Run every digit set, printing one line each.
+     * @return true if the 99th percentile frame of every set fits the budget
+     */
+    public boolean run()
+    {
+        final long budgetNanos = 1000000000L / framesPerSecond;
+        System.out.println("format " + formatter.getTemplate() + 
+                           ", " + framesPerSecond + " fps, budget " + 
+                           micros(budgetNanos) + " us per frame, " + 
+                           seconds + " s of frames per set");
+
+        boolean fits = true;
+        Iterator<ConvertCharacterToImage> sets = ConvertCharacterToImageFactory.iterateAll();
+        while (sets.hasNext())
+        {
+            final ConvertCharacterToImage dig = sets.next();
+            final LatencyHistogram frameTime = runSet(dig);
+            final long p99 = frameTime.getPercentile(0.99);
+            fits &= (p99 <= budgetNanos);
+            System.out.println(String.format("%-24s mean %6d us  p99 %6d us  max %6d us  %5.1f%% of budget",
+                                             dig.getName(),
+                                             micros(frameTime.getMean()),
+                                             micros(p99),
+                                             micros(frameTime.getMax()),
+                                             (100.0 * frameTime.getMean()) / budgetNanos));
+        }
+        return fits;
+    }
+
+    /**
+     * @param dig digit set
+     * @return time per frame, after warming up
+     */
+    public LatencyHistogram runSet(final ConvertCharacterToImage dig)
+    {
+        final TimeTemplate template = formatter.getTemplate();
+        final HeadlessClockRenderer renderer = 
+                HeadlessClockRenderer.forBiggest(template.getBiggestString(), dig, Color.BLACK);
+        // the back buffer: the digits centered in a frame with some margin
+        final int w = renderer.getWidth() + 20;
+        final int h = renderer.getHeight() + 20;
+        final BufferedImage back = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = back.createGraphics();
+        final int frames = framesPerSecond * seconds;
+        final long start = System.currentTimeMillis();
+        try
+        {
+            // warm up: let the JIT compile the loop before it is timed
+            for (int i = 0; i < frames; i++)
+            {
+                frame(g, renderer, dig, frameMillis(start, i), w, h);
+            }
+
+            final LatencyHistogram ret = new LatencyHistogram();
+            for (int i = 0; i < frames; i++)
+            {
+                final long t0 = System.nanoTime();
+                frame(g, renderer, dig, frameMillis(start, i), w, h);
+                ret.record(System.nanoTime() - t0);
+            }
+            return ret;
+        }
+        finally
+        {
+            g.dispose();
+        }
+    }
+
+    /**
+     * One frame, as ActiveClockCanvas.renderFrame draws it.
+     */
+    private void frame(final Graphics2D g,
+                       final HeadlessClockRenderer renderer,
+                       final ConvertCharacterToImage dig,
+                       final long millis,
+                       final int w,
+                       final int h)
+    {
+        final String s = formatter.getTimeString(millis);
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, w, h);
+        g.drawImage(renderer.render(s, dig), 
+                    (w - renderer.getWidth()) / 2, (h - renderer.getHeight()) / 2, null);
+    }
+
+    private long frameMillis(final long start, final int frame)
+    {
+        return start + ((frame * 1000L) / framesPerSecond);
+    }
+
+    private static long micros(final long nanos)
+    {
+        return nanos / 1000L;
+    }
+}
@@ -0,0 +1,108 @@
+/*========================================================================
+ * GlyphHold.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+/**
+ * A component's claim on its current glyph set in the shared 
+ * {@link GlyphRegistry}: the set is retained while the component is 
+ * displayed, and released when it is removed or shows another set.
+ * 
+ * Thread-safe; set() may be called from any thread, suspend() and 
+ * resume() from removeNotify and addNotify.
+ * 
+ * @author Tim Tiemens
+ */
+final class GlyphHold
+{
+    private final GlyphRegistry registry;
+
+    /**
+     * the component's current set, can be null
+     */
+    private ConvertCharacterToImage held = null;
+
+    /**
+     * true while held is retained
+     */
+    private boolean active = true;
+
+    GlyphHold()
+    {
+        this(GlyphRegistry.getShared());
+    }
+
+    GlyphHold(final GlyphRegistry inRegistry)
+    {
+        registry = inRegistry;
+    }
+
+    /**
+     * The component now shows set: retain it, release the previous one.
+     * @param set new current set, can be null
+     */
+    synchronized void set(final ConvertCharacterToImage set)
+    {
+        if (active)
+        {
+            registry.retain(set);
+            registry.release(held);
+        }
+        held = set;
+    }
+
+    /**
+     * Release the current set, e.g. in removeNotify; does nothing if
+     * already suspended.
+     */
+    synchronized void suspend()
+    {
+        if (active)
+        {
+            registry.release(held);
+            active = false;
+        }
+    }
+
+    /**
+     * Retain the current set again, e.g. in addNotify; does nothing if
+     * not suspended.
+     */
+    synchronized void resume()
+    {
+        if (! active)
+        {
+            registry.retain(held);
+            active = true;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*========================================================================
+ * GlyphRaster.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Software raster copy of a {@link ConvertCharacterToImage}: every glyph
+ * is extracted once into packed ARGB int[] rows, and a frame is composed
+ * by copying those rows straight into an int[] framebuffer (for example
+ * the DataBufferInt of a TYPE_INT_ARGB BufferedImage).
+ * 
+ * A fully opaque glyph is copied with one System.arraycopy per row.
+ * A glyph with fully transparent pixels (the GIF glyph sets) carries a
+ * mask of opaque runs per row, and only those runs are copied.
+ * A glyph with partially transparent pixels cannot be copied exactly,
+ * since Graphics.drawImage would blend it; it is drawn with the
+ * fallback Graphics instead, so output stays identical to drawImage.
+ * 
+ * Instances are immutable after construction and shared by all threads.
+ * 
+ * @author Tim Tiemens
+ */
+public final class GlyphRaster
+{
+    private static final Map<ConvertCharacterToImage, GlyphRaster> rasters = 
+            new WeakHashMap<ConvertCharacterToImage, GlyphRaster>();
+
+    /**
+     * @param dig digit images
+     * @return the shared raster copy of dig, extracted on first use
+     */
+    public static GlyphRaster get(final ConvertCharacterToImage dig)
+    {
+        synchronized (rasters)
+        {
+            GlyphRaster ret = rasters.get(dig);
+            if (ret == null)
+            {
+                ret = new GlyphRaster(dig);
+                rasters.put(dig, ret);
+            }
+            return ret;
+        }
+    }
+
+    /**
+     * One extracted glyph.
+     */
+    private static final class Glyph
+    {
+        private final Image image;
+        private final int width;
+        private final int height;
+
+        /** row-major ARGB, null when the glyph must be drawn with Graphics */
+        private final int[] argb;
+
+        /** per row, start/length pairs of opaque runs; null when every pixel is opaque */
+        private final int[][] runs;
+
+        private Glyph(final Image inImage)
+        {
+            image = inImage;
+            width = image.getWidth(null);
+            height = image.getHeight(null);
+
+            int[] pixels = null;
+            int[][] rowRuns = null;
+            if ((width > 0) && (height > 0))
+            {
+                pixels = extract(image, width, height);
+                boolean opaque = true;
+                for (int p : pixels)
+                {
+                    int alpha = p >>> 24;
+                    if (alpha != 0xff)
+                    {
+                        opaque = false;
+                        if (alpha != 0)
+                        {
+                            // translucent: only Graphics blends it exactly
+                            pixels = null;
+                            break;
+                        }
+                    }
+                }
+                if ((pixels != null) && (! opaque))
+                {
+                    rowRuns = computeRuns(pixels, width, height);
+                }
+            }
+            argb = pixels;
+            runs = rowRuns;
+        }
+    }
+
+    private final String name;
+    private final Glyph[] ascii = new Glyph[128];
+    private final Map<Character, Glyph> others = new HashMap<Character, Glyph>();
+    private final int fallbackCount;
+
+    /**
+     * Prefer {@link #get(ConvertCharacterToImage)}, which shares instances.
+     * 
+     * @param dig digit images to extract
+     */
+    public GlyphRaster(final ConvertCharacterToImage dig)
+    {
+        name = dig.getName();
+        int fallbacks = 0;
+        for (Character c : dig.getCharacters())
+        {
+            Image image = dig.convert(c);
+            if (image == null)
+            {
+                continue;
+            }
+            Glyph glyph = new Glyph(image);
+            if (glyph.argb == null)
+            {
+                fallbacks++;
+            }
+            if (c.charValue() < ascii.length)
+            {
+                ascii[c.charValue()] = glyph;
+            }
+            else
+            {
+                others.put(c, glyph);
+            }
+        }
+        fallbackCount = fallbacks;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return number of glyphs that are drawn with Graphics, not copied
+     */
+    public int getFallbackCount()
+    {
+        return fallbackCount;
+    }
+
+    /**
+     * @param info string to measure
+     * @return sum of the glyph widths
+     */
+    public int getWidth(final CharSequence info)
+    {
+        int ret = 0;
+        for (int i = 0, n = info.length(); i < n; i++)
+        {
+            Glyph glyph = glyph(info.charAt(i));
+            if (glyph != null)
+            {
+                ret += glyph.width;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @param info string to measure
+     * @return tallest glyph height
+     */
+    public int getHeight(final CharSequence info)
+    {
+        int ret = 0;
+        for (int i = 0, n = info.length(); i < n; i++)
+        {
+            Glyph glyph = glyph(info.charAt(i));
+            if (glyph != null)
+            {
+                ret = Math.max(ret, glyph.height);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Compose info left to right into dest, top-left glyph corner at x,y.
+     * Glyphs are clipped to the destWidth x destHeight frame.
+     * Characters without a glyph are skipped, as with drawImage(null).
+     * 
+     * @param info string to draw
+     * @param dest row-major ARGB framebuffer
+     * @param destWidth framebuffer width (and scanline stride)
+     * @param destHeight framebuffer height
+     * @param x left edge of the first glyph
+     * @param y top edge of the glyphs
+     * @param fallback Graphics onto the same framebuffer, used for glyphs 
+     *           that cannot be copied; may be null if getFallbackCount() is 0
+     * @return total width drawn
+     */
+    public int draw(final CharSequence info,
+                    final int[] dest,
+                    final int destWidth,
+                    final int destHeight,
+                    final int x,
+                    final int y,
+                    final Graphics fallback)
+    {
+        int posx = x;
+        for (int i = 0, n = info.length(); i < n; i++)
+        {
+            Glyph glyph = glyph(info.charAt(i));
+            if (glyph == null)
+            {
+                continue;
+            }
+            if (glyph.argb != null)
+            {
+                copy(glyph, dest, destWidth, destHeight, posx, y);
+            }
+            else
+            {
+                fallback.drawImage(glyph.image, posx, y, null);
+            }
+            posx += glyph.width;
+        }
+        return posx - x;
+    }
+
+    private Glyph glyph(final char c)
+    {
+        return (c < ascii.length) ? ascii[c] : others.get(Character.valueOf(c));
+    }
+
+    private static void copy(final Glyph glyph,
+                             final int[] dest,
+                             final int destWidth,
+                             final int destHeight,
+                             final int x,
+                             final int y)
+    {
+        final int x0 = Math.max(0, x);
+        final int x1 = Math.min(destWidth, x + glyph.width);
+        final int y0 = Math.max(0, y);
+        final int y1 = Math.min(destHeight, y + glyph.height);
+        if ((x0 >= x1) || (y0 >= y1))
+        {
+            return;
+        }
+
+        final int[] src = glyph.argb;
+        final int w = glyph.width;
+        for (int row = y0; row < y1; row++)
+        {
+            final int srcRow = (row - y) * w;
+            final int destRow = row * destWidth;
+            if (glyph.runs == null)
+            {
+                System.arraycopy(src, srcRow + (x0 - x), dest, destRow + x0, x1 - x0);
+                continue;
+            }
+            final int[] rowRuns = glyph.runs[row - y];
+            for (int r = 0; r < rowRuns.length; r += 2)
+            {
+                int start = Math.max(x0, x + rowRuns[r]);
+                int end = Math.min(x1, x + rowRuns[r] + rowRuns[r + 1]);
+                if (start < end)
+                {
+                    System.arraycopy(src, srcRow + (start - x), dest, destRow + start, end - start);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draw the image over a transparent ARGB image, which gives exactly 
+     * the pixel values drawImage would write for its opaque pixels.
+     */
+    private static int[] extract(final Image image, 
+                                 final int w, 
+                                 final int h)
+    {
+        BufferedImage argb = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = argb.createGraphics();
+        try
+        {
+            g.drawImage(image, 0, 0, null);
+        }
+        finally
+        {
+            g.dispose();
+        }
+        return argb.getRGB(0, 0, w, h, null, 0, w);
+    }
+
+    private static int[][] computeRuns(final int[] pixels, 
+                                       final int w, 
+                                       final int h)
+    {
+        int[][] ret = new int[h][];
+        int[] scratch = new int[w + 1];
+        for (int row = 0; row < h; row++)
+        {
+            int count = 0;
+            int col = 0;
+            while (col < w)
+            {
+                while ((col < w) && ((pixels[row * w + col] >>> 24) == 0))
+                {
+                    col++;
+                }
+                int start = col;
+                while ((col < w) && ((pixels[row * w + col] >>> 24) != 0))
+                {
+                    col++;
+                }
+                if (col > start)
+                {
+                    scratch[count++] = start;
+                    scratch[count++] = col - start;
+                }
+            }
+            ret[row] = new int[count];
+            System.arraycopy(scratch, 0, ret[row], 0, count);
+        }
+        return ret;
+    }
+}
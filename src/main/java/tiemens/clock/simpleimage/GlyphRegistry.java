@@ -0,0 +1,364 @@
+/*========================================================================
+ * GlyphRegistry.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.lang.ref.SoftReference;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import tiemens.clock.simpleimage.ConvertCharacterToImageFactory.Types;
+import tiemens.clock.tick.ClockThreads;
+
+/**
+ * One decoded {@link ConvertCharacterToImage} per {@link Types}, shared by
+ * every caller in the JVM.
+ * 
+ * Sets that are acquired (e.g. shown by a {@link DisplayPanel}) are held
+ * strongly.  Sets nobody has acquired are only softly held, so the garbage
+ * collector can drop them under memory pressure; they are decoded again on
+ * the next request.
+ * 
+ * @author Tim Tiemens
+ */
+public class GlyphRegistry
+{
+    private static Logger logger = Logger.getLogger("GlyphRegistry");
+
+    private static GlyphRegistry shared;
+
+    /**
+     * @return the registry used by {@link ConvertCharacterToImageFactory}
+     */
+    public static synchronized GlyphRegistry getShared()
+    {
+        if (shared == null)
+        {
+            shared = new GlyphRegistry();
+        }
+        return shared;
+    }
+
+    private static class Entry
+    {
+        /**
+         * non-null while refCount > 0
+         */
+        private ConvertCharacterToImage strong;
+        private SoftReference<ConvertCharacterToImage> soft;
+        private int refCount;
+        private long pixelBytes;
+
+        private ConvertCharacterToImage peek()
+        {
+            if (strong != null)
+            {
+                return strong;
+            }
+            return (soft != null) ? soft.get() : null;
+        }
+    }
+
+    private final Map<Types, Entry> entries = new EnumMap<Types, Entry>(Types.class);
+    private int loads = 0;
+
+    public GlyphRegistry()
+    {
+    }
+
+    /**
+     * @param type set wanted
+     * @return the shared set, decoding it if it is not loaded
+     */
+    public ConvertCharacterToImage get(final Types type)
+    {
+        synchronized (this)
+        {
+            ConvertCharacterToImage ret = entry(type).peek();
+            if (ret != null)
+            {
+                return ret;
+            }
+        }
+
+        // decode outside the lock, so callers wanting loaded sets do not wait
+        final ConvertCharacterToImage loaded = ConvertCharacterToImageFactory.loadUncached(type);
+
+        synchronized (this)
+        {
+            Entry entry = entry(type);
+            ConvertCharacterToImage ret = entry.peek();
+            if (ret == null)
+            {
+                ret = loaded;
+                entry.soft = new SoftReference<ConvertCharacterToImage>(ret);
+                entry.pixelBytes = computePixelBytes(ret);
+                loads++;
+                logger.fine("Loaded " + type.name() + " pixelBytes=" + entry.pixelBytes);
+            }
+            if (entry.refCount > 0)
+            {
+                entry.strong = ret;
+            }
+            return ret;
+        }
+    }
+
+    /**
+     * Decode sets in the background, on one {@link ClockThreads} thread,
+     * so later requests find them ready.
+     * @param types sets wanted soon
+     */
+    public void prefetch(final Types... types)
+    {
+        final Types[] wanted = types.clone();
+        ClockThreads.newThread("GlyphRegistry-prefetch", new Runnable()
+        {
+            public void run()
+            {
+                for (Types type : wanted)
+                {
+                    try
+                    {
+                        get(type);
+                    }
+                    catch (RuntimeException e)
+                    {
+                        logger.warning("Prefetch of " + type.name() + " failed: " + e);
+                    }
+                }
+            }
+        }).start();
+    }
+
+    /**
+     * Get the shared set, and mark it in use until {@link #release}.
+     * @param type set wanted
+     * @return the shared set
+     */
+    public ConvertCharacterToImage acquire(final Types type)
+    {
+        ConvertCharacterToImage ret = get(type);
+        synchronized (this)
+        {
+            Entry entry = entry(type);
+            entry.refCount++;
+            entry.strong = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Mark a set in use, if it is one this registry handed out.
+     * @param set any set, can be null
+     * @return true if the set is registry-managed, and so must be released
+     */
+    public synchronized boolean retain(final ConvertCharacterToImage set)
+    {
+        Types type = findType(set);
+        if (type == null)
+        {
+            return false;
+        }
+        Entry entry = entries.get(type);
+        entry.refCount++;
+        entry.strong = set;
+        return true;
+    }
+
+    /**
+     * Undo one {@link #acquire} or {@link #retain}.  When no users are
+     * left, the set becomes eligible for collection under memory pressure.
+     * @param set any set, can be null
+     */
+    public synchronized void release(final ConvertCharacterToImage set)
+    {
+        Types type = findType(set);
+        if (type == null)
+        {
+            return;
+        }
+        Entry entry = entries.get(type);
+        if (entry.refCount <= 0)
+        {
+            logger.warning("Release without acquire for " + type.name());
+            return;
+        }
+        entry.refCount--;
+        if (entry.refCount == 0)
+        {
+            entry.strong = null;
+        }
+    }
+
+    /**
+     * Drop the registry's strong hold on every set that has no users now.
+     * The soft references stay: a caller of {@link #get} may still hold a
+     * set without retaining it, and must keep getting that same instance,
+     * so the garbage collector decides when a set is really gone.
+     * @return number of unused sets still loaded, now left to the collector
+     */
+    public synchronized int releaseUnused()
+    {
+        int ret = 0;
+        for (Entry entry : entries.values())
+        {
+            if (entry.refCount == 0)
+            {
+                entry.strong = null;
+                if (entry.peek() != null)
+                {
+                    ret++;
+                }
+            }
+        }
+        return ret;
+    }
+
+    public synchronized int getRefCount(final Types type)
+    {
+        Entry entry = entries.get(type);
+        return (entry != null) ? entry.refCount : 0;
+    }
+
+    /**
+     * @param type set to check
+     * @return true if the set is decoded and has not been collected
+     */
+    public synchronized boolean isLoaded(final Types type)
+    {
+        Entry entry = entries.get(type);
+        return (entry != null) && (entry.peek() != null);
+    }
+
+    /**
+     * @param type set to check
+     * @return bytes of decoded pixel data held by the set, 0 if not loaded
+     */
+    public synchronized long getPixelBytes(final Types type)
+    {
+        Entry entry = entries.get(type);
+        return ((entry != null) && (entry.peek() != null)) ? entry.pixelBytes : 0L;
+    }
+
+    /**
+     * @return bytes of decoded pixel data for each loaded set
+     */
+    public synchronized Map<Types, Long> getPixelBytesBySet()
+    {
+        Map<Types, Long> ret = new EnumMap<Types, Long>(Types.class);
+        for (Types type : entries.keySet())
+        {
+            long bytes = getPixelBytes(type);
+            if (bytes > 0)
+            {
+                ret.put(type, bytes);
+            }
+        }
+        return ret;
+    }
+
+    public synchronized long getTotalPixelBytes()
+    {
+        long ret = 0;
+        for (Types type : entries.keySet())
+        {
+            ret += getPixelBytes(type);
+        }
+        return ret;
+    }
+
+    /**
+     * @return number of times a set was decoded, including re-decodes
+     *         after collection
+     */
+    public synchronized int getLoadCount()
+    {
+        return loads;
+    }
+
+    private Types findType(final ConvertCharacterToImage set)
+    {
+        if (set == null)
+        {
+            return null;
+        }
+        for (Map.Entry<Types, Entry> e : entries.entrySet())
+        {
+            if (e.getValue().peek() == set)
+            {
+                return e.getKey();
+            }
+        }
+        return null;
+    }
+
+    private Entry entry(final Types type)
+    {
+        Entry ret = entries.get(type);
+        if (ret == null)
+        {
+            ret = new Entry();
+            entries.put(type, ret);
+        }
+        return ret;
+    }
+
+    /**
+     * @param set glyph set
+     * @return bytes of pixel storage behind every glyph in the set
+     */
+    public static long computePixelBytes(final ConvertCharacterToImage set)
+    {
+        long ret = 0;
+        for (Character c : set.getCharacters())
+        {
+            Image image = set.convert(c);
+            if (image instanceof BufferedImage)
+            {
+                DataBuffer db = ((BufferedImage) image).getRaster().getDataBuffer();
+                ret += (long) db.getSize() * db.getNumBanks() * 
+                        DataBuffer.getDataTypeSize(db.getDataType()) / 8;
+            }
+            else if (image != null)
+            {
+                // assume 4 bytes per pixel
+                ret += 4L * image.getWidth(null) * image.getHeight(null);
+            }
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,276 @@
+/*========================================================================
+ * GlyphRunCache.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
+
+/**
+ * Draws a time string with fewer drawImage calls, by caching composited
+ * runs of glyphs.
+ * 
+ * A "h:mm:ss" string keeps its "h:mm:" prefix for a whole minute, so the
+ * prefix is composited into one strip image and rebuilt only when it
+ * changes.  The last two characters are drawn from an optional table of
+ * "00" to "59" tiles, or glyph by glyph without the table.
+ * A tick is then two drawImage calls instead of eight.
+ * 
+ * Tiles are composited on first use, so a glyph set shown for one frame
+ * only (a cross-fade step) costs one tile, not sixty.
+ * 
+ * Output is identical to drawing each glyph.  Not thread-safe: use one per panel.
+ * 
+ * @author Tim Tiemens
+ */
+public class GlyphRunCache
+{
+    public static final int TILE_COUNT = 60;
+
+    private final boolean useTileTable;
+
+    private ConvertCharacterToImage stripDig = null;
+    private String stripPrefix = null;
+    private BufferedImage strip = null;
+
+    /**
+     * width of the glyphs in strip; strip itself is at least 1x1
+     */
+    private int stripWidth = 0;
+
+    private ConvertCharacterToImage tileDig = null;
+    private BufferedImage[] tiles = null;
+
+    private int stripBuilds = 0;
+    private int tileTableBuilds = 0;
+
+    /**
+     * @param inUseTileTable true to keep "00" to "59" tiles
+     *           for the glyph set drawn
+     */
+    public GlyphRunCache(final boolean inUseTileTable)
+    {
+        useTileTable = inUseTileTable;
+    }
+
+    /**
+     * Draw info, glyphs top-aligned at y, starting at x.
+     * 
+     * @param g graphic context
+     * @param info string to display
+     * @param dig digit images
+     * @param x left of first glyph
+     * @param y top of glyphs
+     * @param observer image observer
+     * @return width drawn
+     */
+    public int draw(final Graphics g,
+                    final String info,
+                    final ConvertCharacterToImage dig,
+                    final int x,
+                    final int y,
+                    final ImageObserver observer)
+    {
+        final int n = info.length();
+        if (n < 3)
+        {
+            return drawGlyphs(g, info, 0, n, dig, x, y, observer);
+        }
+
+        final int split = n - 2;
+        if ((strip == null) ||
+            (stripDig != dig) ||
+            (stripPrefix.length() != split) ||
+            (! info.startsWith(stripPrefix)))
+        {
+            buildStrip(info.substring(0, split), dig);
+        }
+
+        int posx = x;
+        if (stripWidth > 0)
+        {
+            g.drawImage(strip, posx, y, observer);
+            posx += stripWidth;
+        }
+
+        BufferedImage tile = getTile(info.charAt(split), info.charAt(split + 1), dig);
+        if (tile != null)
+        {
+            g.drawImage(tile, posx, y, observer);
+            posx += tile.getWidth();
+        }
+        else
+        {
+            posx += drawGlyphs(g, info, split, n, dig, posx, y, observer);
+        }
+        return posx - x;
+    }
+
+    /**
+     * @return number of times the prefix strip was composited
+     */
+    public int getStripBuilds()
+    {
+        return stripBuilds;
+    }
+
+    /**
+     * @return number of times a tile table was started, one per glyph set
+     */
+    public int getTileTableBuilds()
+    {
+        return tileTableBuilds;
+    }
+
+    /**
+     * Drop cached images, e.g. after the digit images changed in place.
+     */
+    public void clear()
+    {
+        strip = null;
+        stripWidth = 0;
+        stripDig = null;
+        stripPrefix = null;
+        tiles = null;
+        tileDig = null;
+    }
+
+    private void buildStrip(final String prefix, final ConvertCharacterToImage dig)
+    {
+        strip = composite(prefix, dig);
+        stripWidth = runWidth(prefix, dig);
+        stripPrefix = prefix;
+        stripDig = dig;
+        stripBuilds++;
+    }
+
+    private BufferedImage getTile(final char tens, 
+                                  final char ones, 
+                                  final ConvertCharacterToImage dig)
+    {
+        if (! useTileTable)
+        {
+            return null;
+        }
+        if ((tens < '0') || (tens > '9') || (ones < '0') || (ones > '9'))
+        {
+            return null;
+        }
+        final int value = (tens - '0') * 10 + (ones - '0');
+        if (value >= TILE_COUNT)
+        {
+            return null;
+        }
+
+        if ((tiles == null) || (tileDig != dig))
+        {
+            tiles = new BufferedImage[TILE_COUNT];
+            tileDig = dig;
+            tileTableBuilds++;
+        }
+        if (tiles[value] == null)
+        {
+            tiles[value] = composite(new String(new char[] { tens, ones }), dig);
+        }
+        return tiles[value];
+    }
+
+    private static int runWidth(final String s, final ConvertCharacterToImage dig)
+    {
+        int ret = 0;
+        for (int i = 0, n = s.length(); i < n; i++)
+        {
+            Image image = dig.convert(s.charAt(i));
+            if (image != null)
+            {
+                ret += image.getWidth(null);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @return the glyphs of s side by side, top-aligned, on a transparent image
+     */
+    private static BufferedImage composite(final String s, final ConvertCharacterToImage dig)
+    {
+        int w = 0;
+        int h = 0;
+        for (int i = 0, n = s.length(); i < n; i++)
+        {
+            Image image = dig.convert(s.charAt(i));
+            if (image != null)
+            {
+                w += image.getWidth(null);
+                h = Math.max(h, image.getHeight(null));
+            }
+        }
+
+        BufferedImage ret = new BufferedImage(Math.max(1, w), Math.max(1, h), 
+                                              BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = ret.createGraphics();
+        try
+        {
+            drawGlyphs(g, s, 0, s.length(), dig, 0, 0, null);
+        }
+        finally
+        {
+            g.dispose();
+        }
+        return ret;
+    }
+
+    private static int drawGlyphs(final Graphics g,
+                                  final String s,
+                                  final int from,
+                                  final int to,
+                                  final ConvertCharacterToImage dig,
+                                  final int x,
+                                  final int y,
+                                  final ImageObserver observer)
+    {
+        int posx = x;
+        for (int i = from; i < to; i++)
+        {
+            Image image = dig.convert(s.charAt(i));
+            if (image != null)
+            {
+                g.drawImage(image, posx, y, observer);
+                posx += image.getWidth(observer);
+            }
+        }
+        return posx - x;
+    }
+}
@@ -0,0 +1,199 @@
+/*========================================================================
+ * GlyphSetTransition.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A cross-fade from one glyph set to another, as a short sequence of
+ * precomputed glyph sets.
+ * 
+ * Frame k of n holds, for every character, the outgoing glyph over the 
+ * outgoing background blended k/n of the way into the incoming glyph over 
+ * the incoming background.  The cell size also moves from the outgoing to
+ * the incoming glyph size, so the first and last frames line up with the
+ * sets on either side.  Frames are opaque, ordinary glyph sets: playing
+ * the transition is just setDigitsImages(frame, background) per step, and 
+ * the display blits them like any other digits, with no per-frame blending.
+ * 
+ * Compute it off the EDT; it is immutable afterwards.
+ * 
+ * @author Tim Tiemens
+ */
+public final class GlyphSetTransition
+{
+    public static final int DEFAULT_STEPS = 8;
+
+    private final ConvertCharacterToImage[] frames;
+    private final Color[] backgrounds;
+
+    /**
+     * @param from outgoing set
+     * @param fromBackground color behind the outgoing set, not null
+     * @param to incoming set
+     * @param toBackground color behind the incoming set, not null
+     * @param steps number of steps from one set to the other; the 
+     *          transition has steps - 1 intermediate frames
+     */
+    public GlyphSetTransition(final ConvertCharacterToImage from,
+                              final Color fromBackground,
+                              final ConvertCharacterToImage to,
+                              final Color toBackground,
+                              final int steps)
+    {
+        if ((fromBackground == null) || (toBackground == null))
+        {
+            throw new IllegalArgumentException("Transition needs both background colors");
+        }
+        if (steps < 1)
+        {
+            throw new IllegalArgumentException("Bad step count " + steps);
+        }
+
+        Set<Character> chars = new LinkedHashSet<Character>(from.getCharacters());
+        chars.addAll(to.getCharacters());
+
+        frames = new ConvertCharacterToImage[steps - 1];
+        backgrounds = new Color[steps - 1];
+        for (int k = 1; k < steps; k++)
+        {
+            final float t = (float) k / steps;
+            final Color bg = blend(fromBackground, toBackground, t);
+            Map<Character, Image> images = new HashMap<Character, Image>();
+            for (Character c : chars)
+            {
+                images.put(c, blend(from.convert(c), fromBackground,
+                                    to.convert(c), toBackground, t));
+            }
+            frames[k - 1] = new ConvertCharacterToImage(
+                    from.getName() + ">" + to.getName() + "#" + k, images, bg);
+            backgrounds[k - 1] = bg;
+        }
+    }
+
+    /**
+     * @return number of intermediate frames
+     */
+    public int getFrameCount()
+    {
+        return frames.length;
+    }
+
+    /**
+     * @param i frame index, 0 is nearest the outgoing set
+     * @return glyph set for frame i
+     */
+    public ConvertCharacterToImage getFrame(final int i)
+    {
+        return frames[i];
+    }
+
+    /**
+     * @param i frame index
+     * @return color behind the digits for frame i
+     */
+    public Color getBackground(final int i)
+    {
+        return backgrounds[i];
+    }
+
+    private static Color blend(final Color a, final Color b, final float t)
+    {
+        return new Color(Math.round(a.getRed()   + (b.getRed()   - a.getRed())   * t),
+                         Math.round(a.getGreen() + (b.getGreen() - a.getGreen()) * t),
+                         Math.round(a.getBlue()  + (b.getBlue()  - a.getBlue())  * t));
+    }
+
+    /**
+     * @return opaque glyph, sized between the two glyph sizes
+     */
+    private static Image blend(final Image a, final Color abg, 
+                               final Image b, final Color bbg,
+                               final float t)
+    {
+        final int aw = (a != null) ? a.getWidth(null) : 0;
+        final int ah = (a != null) ? a.getHeight(null) : 0;
+        final int bw = (b != null) ? b.getWidth(null) : 0;
+        final int bh = (b != null) ? b.getHeight(null) : 0;
+        final int w = Math.max(1, Math.round(aw + (bw - aw) * t));
+        final int h = Math.max(1, Math.round(ah + (bh - ah) * t));
+
+        BufferedImage ret = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        BufferedImage over = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        paintCentered(ret, a, abg);
+        paintCentered(over, b, bbg);
+
+        Graphics2D g = ret.createGraphics();
+        try
+        {
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, t));
+            g.drawImage(over, 0, 0, null);
+        }
+        finally
+        {
+            g.dispose();
+        }
+        return ret;
+    }
+
+    private static void paintCentered(final BufferedImage dest, 
+                                      final Image glyph, 
+                                      final Color bg)
+    {
+        Graphics2D g = dest.createGraphics();
+        try
+        {
+            g.setColor(bg);
+            g.fillRect(0, 0, dest.getWidth(), dest.getHeight());
+            if (glyph != null)
+            {
+                g.drawImage(glyph, 
+                            (dest.getWidth() - glyph.getWidth(null)) / 2,
+                            (dest.getHeight() - glyph.getHeight(null)) / 2, 
+                            null);
+            }
+        }
+        finally
+        {
+            g.dispose();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*========================================================================
+ * HeadlessClockRenderer.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Renders a time string with a {@link ConvertCharacterToImage} into an
+ * image, without any AWT component or window, so it works with
+ * java.awt.headless=true.
+ * 
+ * The layout matches {@link DisplayPanel}: the digits are centered in a
+ * fixed width x height frame, drawn over a cleared background.
+ * 
+ * Each thread renders into its own reusable buffer, so one renderer can
+ * be shared by many threads, and steady-state rendering allocates nothing.
+ * 
+ * By default glyphs are copied into the buffer's int[] pixels from a
+ * {@link GlyphRaster}, which skips the Graphics.drawImage pipeline but 
+ * gives the same pixels.
+ * 
+ * @author Tim Tiemens
+ */
+public class HeadlessClockRenderer
+{
+    /**
+     * @param info string to display
+     * @param dig digit images
+     * @return size of the digits alone (sum of widths, tallest height)
+     */
+    public static Dimension measure(final String info, 
+                                    final ConvertCharacterToImage dig)
+    {
+        int dw = 0;
+        int dh = 0;
+        for (int i = 0, n = info.length(); i < n; i++)
+        {
+            Image image = dig.convert(info.charAt(i));
+            if (image != null)
+            {
+                dw += image.getWidth(null);
+                dh = Math.max(dh, image.getHeight(null));
+            }
+        }
+        return new Dimension(dw, dh);
+    }
+
+    /**
+     * @param biggest widest string that will be rendered, e.g. 
+     *           SimpleTimeFormatGenerator.getBiggestString()
+     * @param dig digit images
+     * @param background clear color, null for transparent
+     * @return renderer whose frame exactly holds biggest
+     */
+    public static HeadlessClockRenderer forBiggest(final String biggest,
+                                                   final ConvertCharacterToImage dig,
+                                                   final Color background)
+    {
+        Dimension d = measure(biggest, dig);
+        return new HeadlessClockRenderer(Math.max(1, d.width), 
+                                         Math.max(1, d.height), 
+                                         background);
+    }
+
+    /**
+     * Per-thread output buffer.
+     */
+    private static class Buffer
+    {
+        private final BufferedImage image;
+        private final int[] data;
+        private final Graphics2D graphics;
+
+        /** last digit set used on this thread, and its raster copy */
+        private ConvertCharacterToImage rasterDig;
+        private GlyphRaster raster;
+
+        private Buffer(final int w, final int h)
+        {
+            image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            graphics = image.createGraphics();
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final int clearArgb;
+    private final boolean useRaster;
+    private final ThreadLocal<Buffer> buffers = new ThreadLocal<Buffer>()
+    {
+        @Override
+        protected Buffer initialValue()
+        {
+            return new Buffer(width, height);
+        }
+    };
+
+    /**
+     * @param inWidth frame width
+     * @param inHeight frame height
+     * @param background clear color, null for transparent
+     */
+    public HeadlessClockRenderer(final int inWidth, 
+                                 final int inHeight, 
+                                 final Color background)
+    {
+        this(inWidth, inHeight, background, true);
+    }
+
+    /**
+     * @param inWidth frame width
+     * @param inHeight frame height
+     * @param background clear color, null for transparent
+     * @param inUseRaster true to copy glyph pixels from a GlyphRaster,
+     *           false to draw every glyph with Graphics.drawImage
+     */
+    public HeadlessClockRenderer(final int inWidth, 
+                                 final int inHeight, 
+                                 final Color background,
+                                 final boolean inUseRaster)
+    {
+        if ((inWidth < 1) || (inHeight < 1))
+        {
+            throw new IllegalArgumentException("Bad frame size " + inWidth + "x" + inHeight);
+        }
+        width = inWidth;
+        height = inHeight;
+        clearArgb = (background != null) ? background.getRGB() : 0;
+        useRaster = inUseRaster;
+    }
+
+    public int getWidth()
+    {
+        return width;
+    }
+
+    public int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * Render into this thread's buffer.
+     * The image is reused: it is only valid until this thread renders again,
+     * and must not be handed to another thread.  Use {@link #renderCopy} for that.
+     * 
+     * @param info string to display
+     * @param dig digit images
+     * @return this thread's buffer, holding the frame
+     */
+    public BufferedImage render(final CharSequence info, 
+                                final ConvertCharacterToImage dig)
+    {
+        Buffer buffer = buffers.get();
+        draw(buffer, info, dig);
+        return buffer.image;
+    }
+
+    /**
+     * @param info string to display
+     * @param dig digit images
+     * @return a new image, owned by the caller
+     */
+    public BufferedImage renderCopy(final CharSequence info, 
+                                    final ConvertCharacterToImage dig)
+    {
+        BufferedImage ret = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        renderArgb(info, dig, 
+                   ((DataBufferInt) ret.getRaster().getDataBuffer()).getData(), 0);
+        return ret;
+    }
+
+    /**
+     * Render as packed ARGB, row-major, width x height ints.
+     * 
+     * @param info string to display
+     * @param dig digit images
+     * @param dest destination array
+     * @param offset index in dest of the top-left pixel
+     */
+    public void renderArgb(final CharSequence info,
+                           final ConvertCharacterToImage dig,
+                           final int[] dest,
+                           final int offset)
+    {
+        if (dest.length - offset < width * height)
+        {
+            throw new IllegalArgumentException("dest too small for " + width + "x" + height);
+        }
+        Buffer buffer = buffers.get();
+        draw(buffer, info, dig);
+        System.arraycopy(buffer.data, 0, dest, offset, width * height);
+    }
+
+    private void draw(final Buffer buffer,
+                      final CharSequence info,
+                      final ConvertCharacterToImage dig)
+    {
+        Arrays.fill(buffer.data, clearArgb);
+
+        if (useRaster)
+        {
+            if (buffer.rasterDig != dig)
+            {
+                buffer.raster = GlyphRaster.get(dig);
+                buffer.rasterDig = dig;
+            }
+            final GlyphRaster raster = buffer.raster;
+            raster.draw(info, buffer.data, width, height,
+                        (width - raster.getWidth(info)) / 2,
+                        (height - raster.getHeight(info)) / 2,
+                        buffer.graphics);
+            return;
+        }
+
+        int dw = 0;
+        int dh = 0;
+        for (int i = 0, n = info.length(); i < n; i++)
+        {
+            Image image = dig.convert(info.charAt(i));
+            if (image != null)
+            {
+                dw += image.getWidth(null);
+                dh = Math.max(dh, image.getHeight(null));
+            }
+        }
+
+        int posx = (width - dw) / 2;
+        final int dy = (height - dh) / 2;
+        for (int i = 0, n = info.length(); i < n; i++)
+        {
+            Image image = dig.convert(info.charAt(i));
+            if (image != null)
+            {
+                buffer.graphics.drawImage(image, posx, dy, null);
+                posx += image.getWidth(null);
+            }
+        }
+    }
+}
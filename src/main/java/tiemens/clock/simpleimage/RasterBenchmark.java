@@ -0,0 +1,158 @@
+/*========================================================================
+ * RasterBenchmark.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import java.awt.Color;
+import java.util.Iterator;
+
+import tiemens.clock.metrics.LatencyHistogram;
+
+/**
+ * Times HeadlessClockRenderer frames drawn through a {@link GlyphRaster}
+ * against the same frames drawn glyph by glyph with Graphics.drawImage,
+ * for every digit set.
+ * 
+ * Each set renders a run of "h:mm:ss" frames, one per second of a day,
+ * first with drawImage and then with the raster copy, each after its own
+ * warm-up; GlyphRasterTest checks that both give the same pixels.
+ * 
+ * Usage: tiemens.clock.Main rasterbench [frames=20000]
+ * 
+ * This is a plain timing loop, not a harness: run it on a quiet machine,
+ * and compare the two columns rather than numbers across machines.
+ * 
+ * @author Tim Tiemens
+ */
+public class RasterBenchmark
+{
+    private final int frames;
+
+    /**
+     * @param args frames= (per set and path)
+     */
+    public static void main(String[] args)
+    {
+        int frames = 20000;
+        for (String arg : args)
+        {
+            if (arg.startsWith("frames="))
+            {
+                frames = Integer.parseInt(arg.substring("frames=".length()));
+            }
+        }
+        new RasterBenchmark(frames).run();
+    }
+
+    /**
+     * @param inFrames frames timed per set and path
+     */
+    public RasterBenchmark(final int inFrames)
+    {
+        frames = inFrames;
+    }
+
+    /**
+     * Run every digit set, printing one line each.
+     */
+    public void run()
+    {
+        System.out.println(frames + " frames per set and path, mean and p99 per frame");
+        Iterator<ConvertCharacterToImage> sets = ConvertCharacterToImageFactory.iterateAll();
+        while (sets.hasNext())
+        {
+            final ConvertCharacterToImage dig = sets.next();
+            final LatencyHistogram graphics = runSet(dig, false);
+            final LatencyHistogram raster = runSet(dig, true);
+            System.out.println(String.format("%-24s drawImage mean %5d us p99 %5d us   raster mean %5d us p99 %5d us   x%.1f",
+                                             dig.getName(),
+                                             micros(graphics.getMean()),
+                                             micros(graphics.getPercentile(0.99)),
+                                             micros(raster.getMean()),
+                                             micros(raster.getPercentile(0.99)),
+                                             ((double) graphics.getMean()) / 
+                                                 Math.max(1L, raster.getMean())));
+        }
+    }
+
+    /**
+     * @param dig digit set
+     * @param useRaster path to time
+     * @return time per frame, after warming up
+     */
+    public LatencyHistogram runSet(final ConvertCharacterToImage dig, final boolean useRaster)
+    {
+        final String biggest = "12:59:59";
+        final HeadlessClockRenderer measure = 
+                HeadlessClockRenderer.forBiggest(biggest, dig, Color.BLACK);
+        final HeadlessClockRenderer renderer = 
+                new HeadlessClockRenderer(measure.getWidth(), measure.getHeight(), 
+                                          Color.BLACK, useRaster);
+        final char[] text = biggest.toCharArray();
+
+        // warm up: let the JIT compile the loop before it is timed
+        for (int i = 0; i < frames; i++)
+        {
+            renderer.render(frameText(text, i), dig);
+        }
+
+        final LatencyHistogram ret = new LatencyHistogram();
+        for (int i = 0; i < frames; i++)
+        {
+            final long t0 = System.nanoTime();
+            renderer.render(frameText(text, i), dig);
+            ret.record(System.nanoTime() - t0);
+        }
+        return ret;
+    }
+
+    /**
+     * @return text, as "hh:mm:ss" for second i of a day, padded like h:mm:ss
+     */
+    private static String frameText(final char[] text, final int i)
+    {
+        final int second = i % (12 * 3600);
+        final int hour = ((second / 3600) == 0) ? 12 : (second / 3600);
+        text[0] = (hour >= 10) ? '1' : ' ';
+        text[1] = (char) ('0' + (hour % 10));
+        text[3] = (char) ('0' + ((second / 60) % 60) / 10);
+        text[4] = (char) ('0' + ((second / 60) % 10));
+        text[6] = (char) ('0' + ((second % 60) / 10));
+        text[7] = (char) ('0' + (second % 10));
+        return new String(text);
+    }
+
+    private static long micros(final long nanos)
+    {
+        return nanos / 1000L;
+    }
+}
@@ -0,0 +1,387 @@
+/*========================================================================
+ * ScaledGlyphCache.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import tiemens.clock.simpleimage.ConvertCharacterToImageFactory.Types;
+
+/**
+ * Synthesizes glyph sets of any height from the fixed-size sets in
+ * {@link ConvertCharacterToImageFactory.Types}.
+ * 
+ * Each (type, height) is scaled once, from the nearest base set of the same
+ * family that is at least as tall, and kept in a small LRU cache.
+ * A request for a base set's own height returns that set itself, uncached,
+ * so the cache never pins a set that GlyphRegistry could release.
+ * 
+ * @author Tim Tiemens
+ */
+public class ScaledGlyphCache
+{
+    private static Logger logger = Logger.getLogger("ScaledGlyphCache");
+
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+
+    private static ScaledGlyphCache shared;
+
+    /**
+     * @return the cache shared by every panel in this JVM
+     */
+    public static synchronized ScaledGlyphCache getShared()
+    {
+        if (shared == null)
+        {
+            shared = new ScaledGlyphCache(DEFAULT_MAX_ENTRIES);
+        }
+        return shared;
+    }
+
+    /**
+     * scaled sets, least recently used first.
+     */
+    private final LinkedHashMap<String, ConvertCharacterToImage> cache;
+
+    private final int maxEntries;
+    private int hits = 0;
+    private int misses = 0;
+    private int evictions = 0;
+
+    /**
+     * @param inMaxEntries number of scaled sets to keep before evicting
+     */
+    public ScaledGlyphCache(final int inMaxEntries)
+    {
+        if (inMaxEntries < 1)
+        {
+            throw new IllegalArgumentException("maxEntries must be positive, was " + inMaxEntries);
+        }
+        maxEntries = inMaxEntries;
+        cache = new LinkedHashMap<String, ConvertCharacterToImage>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ConvertCharacterToImage> eldest)
+            {
+                boolean ret = size() > maxEntries;
+                if (ret)
+                {
+                    evictions++;
+                    logger.fine("Evicting scaled set " + eldest.getKey());
+                }
+                return ret;
+            }
+        };
+    }
+
+    /**
+     * @param type the look (family and color) wanted
+     * @param height glyph height in pixels
+     * @return glyph set of that look, scaled to height
+     */
+    public synchronized ConvertCharacterToImage get(final Types type, 
+                                                    final int height)
+    {
+        checkHeight(height);
+        final String key = type.name() + "@" + height;
+        ConvertCharacterToImage ret = cache.get(key);
+        if (ret != null)
+        {
+            hits++;
+            return ret;
+        }
+
+        Types base = findBaseType(type, height);
+        ConvertCharacterToImage baseSet = ConvertCharacterToImageFactory.get(base);
+        if (base.getGlyphHeight() == height)
+        {
+            return baseSet;
+        }
+        misses++;
+        ret = scaleSet(baseSet, key, height);
+        logger.fine("Scaled set " + key + " from " + base.name());
+        cache.put(key, ret);
+        return ret;
+    }
+
+    /**
+     * Like {@link #get(Types, int)}, but for a set already in hand.
+     * Sets that are not one of the Types are scaled from themselves.
+     * 
+     * @param base set currently displayed
+     * @param height glyph height in pixels
+     * @return glyph set of that look, scaled to height
+     */
+    public synchronized ConvertCharacterToImage get(final ConvertCharacterToImage base,
+                                                    final int height)
+    {
+        Types type = lookupType(base.getName());
+        if (type != null)
+        {
+            return get(type, height);
+        }
+
+        checkHeight(height);
+        final String key = base.getName() + "@" + height;
+        ConvertCharacterToImage ret = cache.get(key);
+        if (ret != null)
+        {
+            hits++;
+            return ret;
+        }
+        Image sample = base.convert('0');
+        if ((sample != null) && (sample.getHeight(null) == height))
+        {
+            return base;
+        }
+        misses++;
+        ret = scaleSet(base, key, height);
+        cache.put(key, ret);
+        return ret;
+    }
+
+    /**
+     * @param base set currently displayed
+     * @param numDigits number of glyphs that must fit side by side
+     * @param w available width
+     * @param h available height
+     * @return base scaled to the tallest height at which numDigits 
+     *         glyphs fit in w x h
+     */
+    public ConvertCharacterToImage getToFit(final ConvertCharacterToImage base,
+                                            final int numDigits,
+                                            final int w,
+                                            final int h)
+    {
+        final int height = fitHeight(base, numDigits, w, h);
+        if (height < 1)
+        {
+            return base;
+        }
+        return get(base, height);
+    }
+
+    /**
+     * Like {@link #getToFit}, but a set that is not one of the Types is 
+     * scaled without entering the cache.  For one-off sets, such as the
+     * frames of a cross-fade, which would only push out the sets that are
+     * used again.  Slow: call it off the EDT, ahead of time.
+     * 
+     * @param base set to show
+     * @param numDigits number of glyphs that must fit side by side
+     * @param w available width
+     * @param h available height
+     * @return base scaled to fit, see getToFit
+     */
+    public ConvertCharacterToImage prepareToFit(final ConvertCharacterToImage base,
+                                                final int numDigits,
+                                                final int w,
+                                                final int h)
+    {
+        if (lookupType(base.getName()) != null)
+        {
+            return getToFit(base, numDigits, w, h);
+        }
+        final int height = fitHeight(base, numDigits, w, h);
+        if (height < 1)
+        {
+            return base;
+        }
+        Image sample = base.convert('0');
+        if (sample.getHeight(null) == height)
+        {
+            return base;
+        }
+        return scaleSet(base, base.getName() + "@" + height, height);
+    }
+
+    /**
+     * @return height at which numDigits glyphs of base fit in w x h,
+     *         0 if base has no '0' to measure
+     */
+    private static int fitHeight(final ConvertCharacterToImage base,
+                                 final int numDigits,
+                                 final int w,
+                                 final int h)
+    {
+        Image sample = base.convert('0');
+        if (sample == null)
+        {
+            return 0;
+        }
+        final int sw = sample.getWidth(null) * Math.max(1, numDigits);
+        final int sh = sample.getHeight(null);
+        return Math.max(1, Math.min(h, (w * sh) / Math.max(1, sw)));
+    }
+
+    public synchronized void clear()
+    {
+        cache.clear();
+    }
+
+    public synchronized int size()
+    {
+        return cache.size();
+    }
+
+    public synchronized int getHits()
+    {
+        return hits;
+    }
+
+    public synchronized int getMisses()
+    {
+        return misses;
+    }
+
+    public synchronized int getEvictions()
+    {
+        return evictions;
+    }
+
+    /**
+     * @param type the look wanted
+     * @param height glyph height wanted
+     * @return the shortest type of the same family that is at least
+     *         height tall, or the tallest of the family if none are
+     */
+    public static Types findBaseType(final Types type, final int height)
+    {
+        Types best = null;
+        Types tallest = type;
+        for (Types candidate : Types.values())
+        {
+            if (! candidate.getFamily().equals(type.getFamily()))
+            {
+                continue;
+            }
+            final int ch = candidate.getGlyphHeight();
+            if (ch > tallest.getGlyphHeight())
+            {
+                tallest = candidate;
+            }
+            if ((ch >= height) && 
+                ((best == null) || (ch < best.getGlyphHeight())))
+            {
+                best = candidate;
+            }
+        }
+        return (best != null) ? best : tallest;
+    }
+
+    private static Types lookupType(final String name)
+    {
+        for (Types type : Types.values())
+        {
+            if (type.name().equals(name))
+            {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    private static void checkHeight(final int height)
+    {
+        if (height < 1)
+        {
+            throw new IllegalArgumentException("height must be positive, was " + height);
+        }
+    }
+
+    private static ConvertCharacterToImage scaleSet(final ConvertCharacterToImage base,
+                                                    final String name,
+                                                    final int height)
+    {
+        Map<Character, Image> map = new HashMap<Character, Image>();
+        for (Character c : base.getCharacters())
+        {
+            Image src = base.convert(c);
+            int sw = src.getWidth(null);
+            int sh = src.getHeight(null);
+            int tw = Math.max(1, Math.round((float) sw * height / sh));
+            map.put(c, scale(src, tw, height));
+        }
+        return new ConvertCharacterToImage(name, map, base.getPreferBackgroundColor());
+    }
+
+    /**
+     * Scale with bicubic interpolation.  Large reductions are done
+     * in halving steps, since a single bicubic step skips source pixels.
+     * 
+     * @param src image to scale
+     * @param tw target width
+     * @param th target height
+     * @return new ARGB image of tw x th
+     */
+    static BufferedImage scale(final Image src, final int tw, final int th)
+    {
+        Image current = src;
+        int cw = src.getWidth(null);
+        int ch = src.getHeight(null);
+
+        do
+        {
+            int nw = (cw / 2 >= tw) ? cw / 2 : tw;
+            int nh = (ch / 2 >= th) ? ch / 2 : th;
+
+            BufferedImage next = new BufferedImage(nw, nh, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            try
+            {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, 
+                                   RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, 
+                                   RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, nw, nh, null);
+            }
+            finally
+            {
+                g.dispose();
+            }
+            current = next;
+            cw = nw;
+            ch = nh;
+        } while ((cw != tw) || (ch != th));
+
+        return (BufferedImage) current;
+    }
+}
@@ -32,15 +32,32 @@
  */
 package tiemens.clock.simpleimage;
 
+import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.awt.GridLayout;
+import java.awt.Label;
+import java.awt.Panel;
 import java.util.Iterator;
-import java.util.Timer;
+import java.util.List;
 import java.util.TimerTask;
+import java.util.TimeZone;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.JFrame;
 import javax.swing.WindowConstants;
 
+import tiemens.clock.format.TemplateFormatter;
+import tiemens.clock.format.TimeStringGenerator;
 import tiemens.clock.simple.MainSimpleClock;
+import tiemens.clock.tick.ClockThreads;
+import tiemens.clock.tick.ClockTickService;
+import tiemens.clock.tick.TimeSource;
+import tiemens.clock.tick.VisibilityWatcher;
 
 /**
  * @author tim
@@ -52,36 +69,208 @@ public class SimpleImageClockMain
     private static final long serialVersionUID = -2146496413203402920L;
 
     /**
-     * @param args
+     * @param args "fit" scales the digits to fill the window,
+     *             "active" uses an ActiveClockCanvas instead of a DisplayPanel,
+     *             "wall" shows a ClockWall of world time zones,
+     *             time zone IDs (e.g. Asia/Tokyo) show one DisplayPanel per zone,
+     *             "format=<preset|pattern>" picks a TimeTemplate; a sub-second 
+     *             one (tenths, hundredths) uses an ActiveClockCanvas at "fps=N"
+     *             frames per second, default the display refresh rate, and 
+     *             is refused with "wall" or zones, which tick once a second
      */
     public static void main(String[] args)
     {
         ConvertCharacterToImage c2img = 
             ConvertCharacterToImageFactory.getDefault();
+        // decode the other sets in the background, before they are cycled to
+        GlyphRegistry.getShared().prefetch(ConvertCharacterToImageFactory.Types.values());
         
-        MainSimpleClock.SimpleTimeFormatGenerator timeGenerator =
-                new MainSimpleClock.SimpleTimeFormatGenerator();
+        TimeStringGenerator timeGenerator = MainSimpleClock.getGenerator(args, null);
         
         String disp = timeGenerator.getBiggestString();
+        if (hasOption(args, "wall"))
+        {
+            mainWall(c2img, args);
+            return;
+        }
+        List<TimeZone> zones = MainSimpleClock.getZones(args);
+        if (! zones.isEmpty())
+        {
+            mainZones(c2img, zones, args);
+            return;
+        }
+        if (hasOption(args, "active") || TemplateFormatter.isSubSecond(timeGenerator))
+        {
+            mainActive(c2img, timeGenerator, disp, getFramesPerSecond(args, timeGenerator));
+            return;
+        }
+
         DisplayPanel dp = new DisplayPanel(disp.length(),
                                            disp,
                                            null, 
                                            c2img, 
                                            250, 90);
-        dp.setInfo(timeGenerator.getTimeString(new java.util.Date().getTime()));
+        dp.setInfo(timeGenerator.getTimeString(TimeSource.getDefault().currentTimeMillis()));
+        dp.setGlyphRunCache(new GlyphRunCache(true));
+        if (hasOption(args, "fit"))
+        {
+            dp.setScaleToFit(true);
+        }
         
         new SimpleImageClockMain(dp);
 
-        Timer timer = new Timer(true);
-        timer.scheduleAtFixedRate(new UpdateTimeTimerTask(dp, timeGenerator), 
-                                  0L, 
-                                  1000L);
-        timer.scheduleAtFixedRate(new ChangeConvertCharacterTimerTask(dp),
-                                  0L,
-                                  5000L);
+        subscribeWhileVisible(dp, timeGenerator, new UpdateTimeTimerTask(dp, timeGenerator));
+
+        ScheduledExecutorService scheduler = ClockThreads.newScheduler("ChangeConvertCharacter");
+        scheduler.scheduleAtFixedRate(new ChangeConvertCharacterTimerTask(dp),
+                                      0L,
+                                      5000L,
+                                      TimeUnit.MILLISECONDS);
     }
 
-    public SimpleImageClockMain(DisplayPanel dp)
+    /**
+     * Same clock, drawn by an ActiveClockCanvas render thread that
+     * wakes on each frame boundary.
+     */
+    private static void mainActive(final ConvertCharacterToImage c2img,
+                                   final TimeStringGenerator timeGenerator,
+                                   final String disp,
+                                   final int framesPerSecond)
+    {
+        ActiveClockCanvas canvas = new ActiveClockCanvas(disp, c2img, 250, 90);
+        canvas.setFramesPerSecond(framesPerSecond);
+        canvas.setTimeGenerator(timeGenerator);
+
+        new SimpleImageClockMain(canvas);
+        canvas.start();
+
+        ScheduledExecutorService scheduler = ClockThreads.newScheduler("ChangeConvertCharacter");
+        scheduler.scheduleAtFixedRate(new ChangeConvertCharacterTimerTask(canvas),
+                                      0L,
+                                      5000L,
+                                      TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * One wall of clocks, one per zone, sharing a tick and a back buffer.
+     */
+    private static void mainWall(final ConvertCharacterToImage c2img, final String[] args)
+    {
+        final String[] zones = {
+            "Pacific/Honolulu", "America/Los_Angeles", "America/Denver", "America/Chicago",
+            "America/New_York", "America/Sao_Paulo", "UTC", "Europe/London",
+            "Europe/Paris", "Europe/Moscow", "Asia/Dubai", "Asia/Kolkata",
+            "Asia/Shanghai", "Asia/Tokyo", "Australia/Sydney", "Pacific/Auckland"
+        };
+        ClockWall wall = new ClockWall(c2img, 4);
+        for (String zone : zones)
+        {
+            wall.addClock(zone, 
+                          MainSimpleClock.getGenerator(args, TimeZone.getTimeZone(zone)));
+        }
+        wall.tick(TimeSource.getDefault().currentTimeMillis());
+
+        new SimpleImageClockMain(wall);
+        wall.start();
+    }
+
+    /**
+     * One DisplayPanel per zone, each scaled to fit its share of the 
+     * window, all updated by the shared ClockTickService.
+     */
+    private static void mainZones(final ConvertCharacterToImage c2img,
+                                  final List<TimeZone> zones,
+                                  final String[] args)
+    {
+        Panel panels = new Panel(new GridLayout(0, 1));
+        for (TimeZone zone : zones)
+        {
+            TimeStringGenerator timeGenerator = 
+                    TemplateFormatter.requireWholeSecond(MainSimpleClock.getGenerator(args, zone));
+            String disp = timeGenerator.getBiggestString();
+            DisplayPanel dp = new DisplayPanel(disp.length(), disp, null, c2img, 250, 90);
+            dp.setInfo(timeGenerator.getTimeString(TimeSource.getDefault().currentTimeMillis()));
+            dp.setGlyphRunCache(new GlyphRunCache(true));
+            dp.setScaleToFit(true);
+            subscribeWhileVisible(dp, timeGenerator, new UpdateTimeTimerTask(dp, timeGenerator));
+
+            Panel labelled = new Panel(new BorderLayout());
+            labelled.add(new Label(zone.getID()), BorderLayout.NORTH);
+            labelled.add(dp, BorderLayout.CENTER);
+            labelled.setPreferredSize(new Dimension(250, 110));
+            panels.add(labelled);
+        }
+
+        new SimpleImageClockMain(panels);
+    }
+
+    /**
+     * Subscribe task to the shared tick while component can be seen; when
+     * it is shown again, task shows the current time at once.
+     */
+    private static void subscribeWhileVisible(final Component component,
+                                              final TimeStringGenerator timeGenerator,
+                                              final UpdateTimeTimerTask task)
+    {
+        ClockTickService.getShared().subscribe(timeGenerator, task);
+        new VisibilityWatcher(component, new VisibilityWatcher.Listener()
+        {
+            public void visibilityChanged(final boolean visible)
+            {
+                if (visible)
+                {
+                    task.run();
+                    ClockTickService.getShared().subscribe(timeGenerator, task);
+                }
+                else
+                {
+                    ClockTickService.getShared().unsubscribe(task);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return "fps=N" if given, else 1 for whole-second formats, else the 
+     *          display refresh rate, or 60 if that is not known
+     */
+    private static int getFramesPerSecond(final String[] args, 
+                                          final TimeStringGenerator timeGenerator)
+    {
+        final String prefix = "fps=";
+        for (String arg : args)
+        {
+            if (arg.startsWith(prefix))
+            {
+                return Integer.parseInt(arg.substring(prefix.length()));
+            }
+        }
+        if (! TemplateFormatter.isSubSecond(timeGenerator))
+        {
+            return 1;
+        }
+        int refresh = DisplayMode.REFRESH_RATE_UNKNOWN;
+        if (! GraphicsEnvironment.isHeadless())
+        {
+            refresh = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                            .getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+        }
+        return (refresh > 0) ? refresh : 60;
+    }
+
+    private static boolean hasOption(final String[] args, final String option)
+    {
+        for (String arg : args)
+        {
+            if (option.equalsIgnoreCase(arg))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public SimpleImageClockMain(Component dp)
     {
         
         JFrame f = this;
@@ -93,14 +282,19 @@ public class SimpleImageClockMain
         f.setVisible(true);
     }
     
+    /**
+     * Shows the time; as a ClockTickService.Subscriber, the text formatted
+     * for the second just starting.
+     */
     public static class UpdateTimeTimerTask
         extends TimerTask
+        implements ClockTickService.Subscriber
     {
-        final private DisplayPanel displayPanel;
-        final private MainSimpleClock.SimpleTimeFormatGenerator timeGenerator;
+        final private ClockDisplay displayPanel;
+        final private TimeStringGenerator timeGenerator;
 
-        public UpdateTimeTimerTask(final DisplayPanel inDisplayPanel,
-                                   final MainSimpleClock.SimpleTimeFormatGenerator 
+        public UpdateTimeTimerTask(final ClockDisplay inDisplayPanel,
+                                   final TimeStringGenerator 
                                                       inTimeGenerator)
         {
             displayPanel = inDisplayPanel;
@@ -110,18 +304,51 @@ public class SimpleImageClockMain
         @Override
         public void run() 
         {
-            displayPanel.setInfo(timeGenerator
-                                 .getTimeString(new java.util.Date().getTime()));
+            final long millis = TimeSource.getDefault().currentTimeMillis();
+            displayPanel.setInfo(timeGenerator.getTimeString(millis), millis);
+        }
+
+        public void tick(final long secondMillis, final String text)
+        {
+            displayPanel.setInfo((text != null) ? text 
+                                                : timeGenerator.getTimeString(secondMillis),
+                                 secondMillis);
         }
     } // timer
 
+    /**
+     * Cycles through every glyph set, cross-fading from one to the next.
+     * Each cross-fade is computed on the calling thread, then played on a
+     * separate scheduler so that thread's other tasks are not held up.
+     * A DisplayPanel that scales to fit gets every frame scaled on the
+     * calling thread too, before playback, instead of on the EDT.
+     */
     public static class ChangeConvertCharacterTimerTask
         extends TimerTask
     {
-        final private DisplayPanel displayPanel;
+        /**
+         * time each cross-fade frame is shown
+         */
+        public static final long TRANSITION_FRAME_MILLIS = 50L;
+
+        final private ClockDisplay displayPanel;
         private Iterator<ConvertCharacterToImage> iter = null;
         private final Color originalBackground;
-        public ChangeConvertCharacterTimerTask(final DisplayPanel inDisplayPanel)
+
+        /**
+         * set and color last given to displayPanel, null before the first run
+         */
+        private ConvertCharacterToImage current = null;
+        private Color currentBackground = null;
+
+        private ScheduledExecutorService playback = null;
+
+        /**
+         * bumped by each play; frames of an older transition are skipped
+         */
+        private volatile int generation = 0;
+
+        public ChangeConvertCharacterTimerTask(final ClockDisplay inDisplayPanel)
         {
             displayPanel = inDisplayPanel;
             iter = null;
@@ -131,20 +358,84 @@ public class SimpleImageClockMain
         @Override
         public void run() 
         {
+            // nobody to show a new set to; no point decoding or fading
+            if ((displayPanel instanceof Component) && 
+                ! VisibilityWatcher.isVisible((Component) displayPanel))
+            {
+                return;
+            }
             ConvertCharacterToImage next = getNext();
             
-            final Color nextbg = next.getPreferBackgroundColor();
-            if (nextbg != null)
+            Color nextbg = next.getPreferBackgroundColor();
+            if (nextbg == null)
+            {
+                nextbg = originalBackground;
+            }
+            
+            System.out.println("Switching to image set " + next.getName());
+            final Color frombg = (currentBackground != null) ? currentBackground 
+                                                             : displayPanel.getBackground();
+            final Color tobg = (nextbg != null) ? nextbg : displayPanel.getBackground();
+            if ((current != null) && (current != next) && 
+                (frombg != null) && (tobg != null))
             {
-                displayPanel.setBackground(nextbg);
+                GlyphSetTransition transition = 
+                        new GlyphSetTransition(current, frombg, next, tobg, 
+                                               GlyphSetTransition.DEFAULT_STEPS);
+                if (displayPanel instanceof DisplayPanel)
+                {
+                    DisplayPanel panel = (DisplayPanel) displayPanel;
+                    for (int i = 0; i < transition.getFrameCount(); i++)
+                    {
+                        panel.prepareDigits(transition.getFrame(i));
+                    }
+                    panel.prepareDigits(next);
+                }
+                play(transition, next, nextbg);
             }
             else
             {
-                displayPanel.setBackground(originalBackground);
+                displayPanel.setDigitsImages(next, nextbg);
+            }
+            current = next;
+            currentBackground = nextbg;
+        }
+
+        /**
+         * Show each transition frame in turn, then the incoming set itself.
+         */
+        private synchronized void play(final GlyphSetTransition transition,
+                                       final ConvertCharacterToImage next,
+                                       final Color nextbg)
+        {
+            if (playback == null)
+            {
+                playback = ClockThreads.newScheduler("GlyphSetTransition");
+            }
+            final int gen = ++generation;
+            for (int i = 0; i <= transition.getFrameCount(); i++)
+            {
+                final int frame = i;
+                playback.schedule(new Runnable()
+                {
+                    public void run()
+                    {
+                        if (generation != gen)
+                        {
+                            return; // a newer transition took over
+                        }
+                        if (frame < transition.getFrameCount())
+                        {
+                            displayPanel.setDigitsImages(transition.getFrame(frame), 
+                                                         transition.getBackground(frame));
+                        }
+                        else
+                        {
+                            displayPanel.setDigitsImages(next, nextbg);
+                        }
+                    }
+                }, frame * TRANSITION_FRAME_MILLIS, TimeUnit.MILLISECONDS);
             }
-            
-            System.out.println("Switching to image set " + next.getName());
-            displayPanel.setDigitsImages(next);
         }
         
         private ConvertCharacterToImage getNext()
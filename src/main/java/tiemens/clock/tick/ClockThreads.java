@@ -0,0 +1,196 @@
+/*========================================================================
+ * ClockThreads.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.tick;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Makes every background thread the clocks use: tick loops, schedulers,
+ * render workers and glyph loading.
+ * 
+ * In PLATFORM mode (the default) these are ordinary daemon threads.  In 
+ * VIRTUAL mode they are virtual threads, so thousands of clocks or render 
+ * jobs are not limited by platform thread count or stack memory.  Virtual
+ * threads need Java 21; they are created by reflection, so this code still
+ * runs on older JVMs, where VIRTUAL mode falls back to platform threads.
+ * 
+ * Pick the mode at startup, before any clock starts: with the system 
+ * property clock.threads=virtual, or {@link #setMode}.
+ * 
+ * @author Tim Tiemens
+ */
+public final class ClockThreads
+{
+    private static Logger logger = Logger.getLogger("ClockThreads");
+
+    public enum Mode
+    {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    /**
+     * Thread.ofVirtual(), Thread.Builder.name(String), Thread.Builder.unstarted(Runnable);
+     * null when this JVM has no virtual threads
+     */
+    private static final Method ofVirtual;
+    private static final Method builderName;
+    private static final Method builderUnstarted;
+
+    static
+    {
+        Method of = null;
+        Method name = null;
+        Method unstarted = null;
+        try
+        {
+            of = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            name = builder.getMethod("name", String.class);
+            unstarted = builder.getMethod("unstarted", Runnable.class);
+        }
+        catch (Exception e)
+        {
+            of = null;
+        }
+        ofVirtual = of;
+        builderName = name;
+        builderUnstarted = unstarted;
+    }
+
+    private static volatile Mode mode = parseMode(System.getProperty("clock.threads"));
+
+    private static final AtomicInteger count = new AtomicInteger();
+
+    private ClockThreads()
+    {
+    }
+
+    /**
+     * @return true if this JVM can create virtual threads
+     */
+    public static boolean isVirtualAvailable()
+    {
+        return ofVirtual != null;
+    }
+
+    /**
+     * @return mode requested; see {@link #isVirtual} for the one in effect
+     */
+    public static Mode getMode()
+    {
+        return mode;
+    }
+
+    /**
+     * @param inMode mode for threads created from now on
+     */
+    public static void setMode(final Mode inMode)
+    {
+        if ((inMode == Mode.VIRTUAL) && ! isVirtualAvailable())
+        {
+            logger.warning("Virtual threads need Java 21 or later; using platform threads");
+        }
+        mode = inMode;
+    }
+
+    /**
+     * @return true if new threads will be virtual
+     */
+    public static boolean isVirtual()
+    {
+        return (mode == Mode.VIRTUAL) && isVirtualAvailable();
+    }
+
+    /**
+     * @param name thread name
+     * @param runnable what the thread runs
+     * @return a new, unstarted daemon thread (virtual threads are always daemon)
+     */
+    public static Thread newThread(final String name, final Runnable runnable)
+    {
+        if (isVirtual())
+        {
+            try
+            {
+                Object builder = builderName.invoke(ofVirtual.invoke(null), name);
+                return (Thread) builderUnstarted.invoke(builder, runnable);
+            }
+            catch (Exception e)
+            {
+                logger.warning("Cannot create virtual thread, using a platform thread: " + e);
+            }
+        }
+        Thread ret = new Thread(runnable, name);
+        ret.setDaemon(true);
+        return ret;
+    }
+
+    /**
+     * @param prefix name prefix; threads are named prefix-N
+     * @return factory of threads in the current mode
+     */
+    public static ThreadFactory factory(final String prefix)
+    {
+        return new ThreadFactory()
+        {
+            public Thread newThread(final Runnable r)
+            {
+                return ClockThreads.newThread(prefix + "-" + count.incrementAndGet(), r);
+            }
+        };
+    }
+
+    /**
+     * @param name thread name prefix
+     * @return a single-threaded scheduler in the current mode
+     */
+    public static ScheduledExecutorService newScheduler(final String name)
+    {
+        return Executors.newSingleThreadScheduledExecutor(factory(name));
+    }
+
+    /**
+     * @param value "virtual" or "platform", any case; null for the default
+     * @return the mode named by value, PLATFORM if none
+     */
+    public static Mode parseMode(final String value)
+    {
+        return "virtual".equalsIgnoreCase(value) ? Mode.VIRTUAL : Mode.PLATFORM;
+    }
+}
@@ -0,0 +1,317 @@
+/*========================================================================
+ * ClockTickService.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.tick;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import tiemens.clock.format.TimeStringGenerator;
+
+/**
+ * One tick for every clock: a single {@link SecondTicker} thread that, at
+ * each second boundary, formats the time once per generator and hands the
+ * result to every subscriber of that generator.
+ * 
+ * However many clocks subscribe, there is one ticking thread, and it only
+ * runs while there is at least one subscriber.
+ * 
+ * Subscribers are called on the ticking thread, in subscription order, and
+ * must return quickly: hand the text on (setInfo, repaint) rather than 
+ * paint on this thread.
+ * 
+ * @author Tim Tiemens
+ */
+public final class ClockTickService
+{
+    private static Logger logger = Logger.getLogger("ClockTickService");
+
+    /**
+     * Receives each tick.
+     */
+    public interface Subscriber
+    {
+        /**
+         * @param secondMillis the second boundary now starting
+         * @param text the subscription's generator output for secondMillis,
+         *          null if it subscribed without a generator
+         */
+        void tick(long secondMillis, String text);
+    }
+
+    private static ClockTickService shared;
+
+    /**
+     * @return the service shared by every clock in this JVM
+     */
+    public static synchronized ClockTickService getShared()
+    {
+        if (shared == null)
+        {
+            shared = new ClockTickService("ClockTick");
+        }
+        return shared;
+    }
+
+    /**
+     * Subscribers of one generator; immutable.
+     */
+    private static final class Group
+    {
+        private final TimeStringGenerator generator;
+        private final Subscriber[] subscribers;
+
+        private Group(final TimeStringGenerator inGenerator, 
+                      final Subscriber[] inSubscribers)
+        {
+            generator = inGenerator;
+            subscribers = inSubscribers;
+        }
+    }
+
+    private final String name;
+    private final long leadMillis;
+    private final TimeSource source;
+
+    /**
+     * guards ticker and changes to groups
+     */
+    private final Object lock = new Object();
+    private SecondTicker ticker = null;
+
+    /**
+     * current subscriptions, replaced as a whole on each change so a tick
+     * reads them without locking
+     */
+    private volatile Group[] groups = new Group[0];
+
+    private volatile long tickCount = 0L;
+
+    /**
+     * @param inName name of the ticking thread
+     */
+    public ClockTickService(final String inName)
+    {
+        this(inName, SecondTicker.getDefaultLeadMillis());
+    }
+
+    /**
+     * @param inName name of the ticking thread
+     * @param inLeadMillis see {@link SecondTicker}
+     */
+    public ClockTickService(final String inName, final long inLeadMillis)
+    {
+        this(inName, inLeadMillis, TimeSource.getDefault());
+    }
+
+    /**
+     * @param inName name of the ticking thread
+     * @param inLeadMillis see {@link SecondTicker}
+     * @param inSource time to tick by
+     */
+    public ClockTickService(final String inName, 
+                            final long inLeadMillis, 
+                            final TimeSource inSource)
+    {
+        name = inName;
+        leadMillis = inLeadMillis;
+        source = inSource;
+    }
+
+    public TimeSource getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Subscribe; the ticking thread starts with the first subscriber.
+     * Subscribing a subscriber already in generator's group does nothing,
+     * so it is still called once per tick.
+     * @param generator formats the text passed to subscriber, null for none;
+     *          subscribers of the same generator share one call per tick
+     * @param subscriber called once per second
+     */
+    public void subscribe(final TimeStringGenerator generator, 
+                          final Subscriber subscriber)
+    {
+        synchronized (lock)
+        {
+            final Group[] old = groups;
+            List<Group> next = new ArrayList<Group>(old.length + 1);
+            boolean added = false;
+            for (Group group : old)
+            {
+                if ((! added) && (group.generator == generator))
+                {
+                    for (Subscriber s : group.subscribers)
+                    {
+                        if (s == subscriber)
+                        {
+                            return;
+                        }
+                    }
+                    Subscriber[] subs = new Subscriber[group.subscribers.length + 1];
+                    System.arraycopy(group.subscribers, 0, subs, 0, group.subscribers.length);
+                    subs[group.subscribers.length] = subscriber;
+                    next.add(new Group(generator, subs));
+                    added = true;
+                }
+                else
+                {
+                    next.add(group);
+                }
+            }
+            if (! added)
+            {
+                next.add(new Group(generator, new Subscriber[] { subscriber }));
+            }
+            groups = next.toArray(new Group[next.size()]);
+
+            if (ticker == null)
+            {
+                ticker = new SecondTicker(name, leadMillis, source, new SecondTicker.Listener()
+                {
+                    public void tick(final long secondMillis)
+                    {
+                        ClockTickService.this.tick(secondMillis);
+                    }
+                });
+                ticker.start();
+            }
+        }
+    }
+
+    /**
+     * Remove every subscription of subscriber; the ticking thread stops
+     * with the last one.
+     * @param subscriber subscriber to remove
+     */
+    public void unsubscribe(final Subscriber subscriber)
+    {
+        SecondTicker stopped = null;
+        synchronized (lock)
+        {
+            List<Group> next = new ArrayList<Group>(groups.length);
+            for (Group group : groups)
+            {
+                List<Subscriber> subs = new ArrayList<Subscriber>(group.subscribers.length);
+                for (Subscriber s : group.subscribers)
+                {
+                    if (s != subscriber)
+                    {
+                        subs.add(s);
+                    }
+                }
+                if (! subs.isEmpty())
+                {
+                    next.add(new Group(group.generator, subs.toArray(new Subscriber[subs.size()])));
+                }
+            }
+            groups = next.toArray(new Group[next.size()]);
+
+            if (groups.length == 0)
+            {
+                stopped = ticker;
+                ticker = null;
+            }
+        }
+        if (stopped != null)
+        {
+            stopped.stop();
+        }
+    }
+
+    /**
+     * @return number of subscriptions
+     */
+    public int getSubscriberCount()
+    {
+        int ret = 0;
+        for (Group group : groups)
+        {
+            ret += group.subscribers.length;
+        }
+        return ret;
+    }
+
+    /**
+     * @return true while the ticking thread runs
+     */
+    public boolean isRunning()
+    {
+        synchronized (lock)
+        {
+            return ticker != null;
+        }
+    }
+
+    /**
+     * @return number of ticks delivered so far
+     */
+    public long getTickCount()
+    {
+        return tickCount;
+    }
+
+    private void tick(final long secondMillis)
+    {
+        tickCount++;
+        for (Group group : groups)
+        {
+            String text = null;
+            if (group.generator != null)
+            {
+                try
+                {
+                    text = group.generator.getTimeString(secondMillis);
+                }
+                catch (RuntimeException e)
+                {
+                    logger.warning(name + " format failed: " + e);
+                    continue;
+                }
+            }
+            for (Subscriber subscriber : group.subscribers)
+            {
+                try
+                {
+                    subscriber.tick(secondMillis, text);
+                }
+                catch (RuntimeException e)
+                {
+                    logger.warning(name + " subscriber failed: " + e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*========================================================================
+ * SecondTicker.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.tick;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Calls a listener once per wall-clock second, right at the second
+ * boundary (less a small lead), instead of at a fixed rate from an
+ * arbitrary start.
+ * 
+ * Every wake-up is computed from the wall clock again, so sleep overshoot
+ * and timer drift never accumulate, and a clock change is followed on the
+ * next tick.  An early wake-up sleeps again; a late one (after a suspend,
+ * say) delivers only the latest second, never a burst of stale ones.
+ * 
+ * The listener is given the boundary itself, so it shows the new second
+ * even when the lead wakes it a few milliseconds early.
+ * 
+ * "Wall clock" here is a {@link TimeSource}, the default one unless given;
+ * with a simulated source the ticker runs as fast as that source.
+ * 
+ * @author Tim Tiemens
+ */
+public class SecondTicker
+{
+    private static Logger logger = Logger.getLogger("SecondTicker");
+
+    /**
+     * Receives one call per second, on the ticker thread.
+     */
+    public interface Listener
+    {
+        /**
+         * @param secondMillis the second boundary now starting, 
+         *           a multiple of 1000 in TimeSource.currentTimeMillis() terms
+         */
+        void tick(long secondMillis);
+    }
+
+    /**
+     * default lead, milliseconds; system property clock.tick.lead overrides it
+     */
+    public static final long DEFAULT_LEAD_MILLIS = 5L;
+
+    /**
+     * @return lead from system property clock.tick.lead, else DEFAULT_LEAD_MILLIS
+     */
+    public static long getDefaultLeadMillis()
+    {
+        return Long.getLong("clock.tick.lead", DEFAULT_LEAD_MILLIS).longValue();
+    }
+
+    /**
+     * @param nowMillis current wall-clock time
+     * @param leadMillis lead before each boundary
+     * @return the first second boundary whose wake-up time is after nowMillis
+     */
+    public static long nextBoundary(final long nowMillis, final long leadMillis)
+    {
+        return nextBoundary(nowMillis, leadMillis, 1);
+    }
+
+    /**
+     * Boundaries of a rate that does not divide 1000 evenly (60 per second,
+     * say) are rounded up to whole milliseconds, so each second still has 
+     * exactly ticksPerSecond of them and the first is the second itself.
+     * 
+     * @param nowMillis current wall-clock time
+     * @param leadMillis lead before each boundary
+     * @param ticksPerSecond boundaries per second, 1 to 1000
+     * @return the first boundary whose wake-up time is after nowMillis
+     */
+    public static long nextBoundary(final long nowMillis, 
+                                    final long leadMillis, 
+                                    final int ticksPerSecond)
+    {
+        final long index = (((nowMillis + leadMillis) * ticksPerSecond) / 1000L) + 1L;
+        return ((index * 1000L) + ticksPerSecond - 1L) / ticksPerSecond;
+    }
+
+    private final String name;
+    private final long leadMillis;
+    private final TimeSource source;
+    private final Listener listener;
+
+    /**
+     * guards thread and running; a j.u.c. lock rather than a monitor, so
+     * waiting between ticks does not pin a virtual thread's carrier
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * signalled by stop(), waited on between ticks
+     */
+    private final Condition stopped = lock.newCondition();
+    private Thread thread = null;
+    private boolean running = false;
+
+    /**
+     * @param inName thread name
+     * @param inListener called once per second
+     */
+    public SecondTicker(final String inName, 
+                        final Listener inListener)
+    {
+        this(inName, getDefaultLeadMillis(), inListener);
+    }
+
+    /**
+     * @param inName thread name
+     * @param inLeadMillis wake this many milliseconds before each boundary,
+     *           to cover the time it takes to show the new second; 0 to 999
+     * @param inListener called once per second
+     */
+    public SecondTicker(final String inName, 
+                        final long inLeadMillis,
+                        final Listener inListener)
+    {
+        this(inName, inLeadMillis, TimeSource.getDefault(), inListener);
+    }
+
+    /**
+     * @param inName thread name
+     * @param inLeadMillis wake this many milliseconds (of source time) 
+     *           before each boundary; 0 to 999
+     * @param inSource time to tick by
+     * @param inListener called once per second of source time
+     */
+    public SecondTicker(final String inName, 
+                        final long inLeadMillis,
+                        final TimeSource inSource,
+                        final Listener inListener)
+    {
+        if ((inLeadMillis < 0L) || (inLeadMillis >= 1000L))
+        {
+            throw new IllegalArgumentException("Bad lead " + inLeadMillis + "ms");
+        }
+        name = inName;
+        leadMillis = inLeadMillis;
+        source = inSource;
+        listener = inListener;
+    }
+
+    public long getLeadMillis()
+    {
+        return leadMillis;
+    }
+
+    public TimeSource getSource()
+    {
+        return source;
+    }
+
+    public boolean isRunning()
+    {
+        lock.lock();
+        try
+        {
+            return running;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Start ticking on a daemon thread from {@link ClockThreads}; the first
+     * tick is at the next boundary.
+     * Does nothing if already running.
+     */
+    public void start()
+    {
+        lock.lock();
+        try
+        {
+            if (running)
+            {
+                return;
+            }
+            running = true;
+            thread = ClockThreads.newThread(name, new Runnable()
+            {
+                public void run()
+                {
+                    tickLoop();
+                }
+            });
+            thread.start();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop ticking, and wait briefly for a tick in progress to finish.
+     * Can be started again afterwards.
+     */
+    public void stop()
+    {
+        Thread t;
+        lock.lock();
+        try
+        {
+            running = false;
+            t = thread;
+            thread = null;
+            stopped.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        if ((t != null) && (t != Thread.currentThread()))
+        {
+            try
+            {
+                t.join(1000);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void tickLoop()
+    {
+        final Thread self = Thread.currentThread();
+        while (true)
+        {
+            long second;
+            lock.lock();
+            try
+            {
+                second = nextBoundary(source.currentTimeMillis(), leadMillis);
+                long wait;
+                while ((thread == self) && 
+                       ((wait = (second - leadMillis) - source.currentTimeMillis()) > 0L))
+                {
+                    try
+                    {
+                        stopped.await(source.toRealMillis(wait), TimeUnit.MILLISECONDS);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        return;
+                    }
+                }
+                if (thread != self)
+                {
+                    return;
+                }
+                // a late wake-up shows the latest second, not each one missed
+                second = Math.max(second, 
+                                  ((source.currentTimeMillis() + leadMillis) / 1000L) * 1000L);
+            }
+            finally
+            {
+                lock.unlock();
+            }
+
+            try
+            {
+                listener.tick(second);
+            }
+            catch (RuntimeException e)
+            {
+                logger.warning(name + " tick failed: " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*========================================================================
+ * TimeSource.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.tick;
+
+import java.util.logging.Logger;
+
+/**
+ * Where clocks get the time from.
+ * 
+ * Three sources are built in:
+ * <ul>
+ * <li>{@link #system()}: System.currentTimeMillis(), as before</li>
+ * <li>{@link #monotonic()}: runs on System.nanoTime(), and slews gently 
+ *     toward the wall clock, so small wall-clock steps (e.g. NTP) never
+ *     make a clock skip or repeat a second; a large step is followed at once</li>
+ * <li>{@link #simulated}: starts at a fixed time and runs rate times
+ *     faster than real time, to drive the whole tick, format and render
+ *     pipeline faster than real time, from the same start every run</li>
+ * </ul>
+ * 
+ * Pick the default at startup with the system property clock.time:
+ * "system", "monotonic", or "simulated:RATE" (e.g. simulated:1000); 
+ * clock.time.start sets the simulated start, in epoch milliseconds.
+ * 
+ * @author Tim Tiemens
+ */
+public abstract class TimeSource
+{
+    private static Logger logger = Logger.getLogger("TimeSource");
+
+    private static volatile TimeSource defaultSource = null;
+
+    /**
+     * @return the source clocks use unless given another one; created once,
+     *          so every caller shares one simulated or monotonic clock
+     */
+    public static TimeSource getDefault()
+    {
+        TimeSource ret = defaultSource;
+        if (ret == null)
+        {
+            synchronized (TimeSource.class)
+            {
+                ret = defaultSource;
+                if (ret == null)
+                {
+                    ret = parse(System.getProperty("clock.time"), 
+                                Long.getLong("clock.time.start", 
+                                             System.currentTimeMillis()).longValue());
+                    defaultSource = ret;
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Set the default source; call at startup, before any clock starts.
+     * @param source new default
+     */
+    public static synchronized void setDefault(final TimeSource source)
+    {
+        defaultSource = source;
+    }
+
+    /**
+     * @param spec "system", "monotonic" or "simulated:RATE"; null for system
+     * @param simulatedStart start time of a simulated source
+     * @return the source spec names, the system source if spec is not understood
+     */
+    public static TimeSource parse(final String spec, final long simulatedStart)
+    {
+        if ((spec == null) || "system".equalsIgnoreCase(spec))
+        {
+            return system();
+        }
+        if ("monotonic".equalsIgnoreCase(spec))
+        {
+            return monotonic();
+        }
+        if (spec.toLowerCase().startsWith("simulated"))
+        {
+            double rate = 1.0;
+            int colon = spec.indexOf(':');
+            if (colon >= 0)
+            {
+                try
+                {
+                    rate = Double.parseDouble(spec.substring(colon + 1));
+                }
+                catch (NumberFormatException e)
+                {
+                    logger.warning("Bad simulated rate in " + spec + "; using 1");
+                }
+            }
+            return simulated(simulatedStart, rate);
+        }
+        logger.warning("Unknown time source " + spec + "; using system");
+        return system();
+    }
+
+    public static TimeSource system()
+    {
+        return SystemTimeSource.INSTANCE;
+    }
+
+    /**
+     * @return a new monotonic source, starting at the wall clock time
+     */
+    public static TimeSource monotonic()
+    {
+        return new MonotonicTimeSource();
+    }
+
+    /**
+     * @param startMillis time the source shows now
+     * @param rate clock milliseconds per real millisecond, e.g. 1000
+     * @return a new simulated source
+     */
+    public static TimeSource simulated(final long startMillis, final double rate)
+    {
+        return new SimulatedTimeSource(startMillis, rate);
+    }
+
+    /**
+     * @return current time, epoch milliseconds
+     */
+    public abstract long currentTimeMillis();
+
+    /**
+     * @param clockMillis a span of this source's time
+     * @return real milliseconds it takes to pass, at least 1 for any 
+     *          positive span, so it can be handed to wait or sleep
+     */
+    public long toRealMillis(final long clockMillis)
+    {
+        return clockMillis;
+    }
+
+    private static final class SystemTimeSource
+        extends TimeSource
+    {
+        private static final SystemTimeSource INSTANCE = new SystemTimeSource();
+
+        @Override
+        public long currentTimeMillis()
+        {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public String toString()
+        {
+            return "system";
+        }
+    }
+
+    private static final class MonotonicTimeSource
+        extends TimeSource
+    {
+        /**
+         * a wall-clock difference larger than this is a real clock change
+         */
+        private static final long STEP_MILLIS = 2000L;
+
+        /**
+         * slew at most 1 ms per SLEW_PER real ms
+         */
+        private static final long SLEW_PER = 100L;
+
+        /**
+         * nanoTime it takes to earn 1 ms of slew
+         */
+        private static final long SLEW_NANOS = SLEW_PER * 1000000L;
+
+        private long offsetMillis;
+
+        /**
+         * slew earned since this nanoTime is still to be spent; it moves
+         * only by what is spent, so frequent calls add up to whole ms
+         */
+        private long slewFromNanos;
+        private long last;
+
+        private MonotonicTimeSource()
+        {
+            slewFromNanos = System.nanoTime();
+            offsetMillis = System.currentTimeMillis() - (slewFromNanos / 1000000L);
+            last = Long.MIN_VALUE;
+        }
+
+        @Override
+        public synchronized long currentTimeMillis()
+        {
+            final long nanos = System.nanoTime();
+            final long wall = System.currentTimeMillis();
+            long ret = (nanos / 1000000L) + offsetMillis;
+            final long error = wall - ret;
+            if (Math.abs(error) > STEP_MILLIS)
+            {
+                // the wall clock was set: follow it
+                offsetMillis += error;
+                ret = wall;
+                slewFromNanos = nanos;
+            }
+            else if (error == 0L)
+            {
+                // in step: nothing to save slew up for
+                slewFromNanos = nanos;
+            }
+            else
+            {
+                final long allowed = (nanos - slewFromNanos) / SLEW_NANOS;
+                final long slew = Math.max(-allowed, Math.min(allowed, error));
+                if (slew == error)
+                {
+                    slewFromNanos = nanos;
+                }
+                else
+                {
+                    slewFromNanos += Math.abs(slew) * SLEW_NANOS;
+                }
+                offsetMillis += slew;
+                ret += slew;
+                // never run backwards because of a slew
+                ret = Math.max(ret, last);
+            }
+            last = ret;
+            return ret;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "monotonic";
+        }
+    }
+
+    private static final class SimulatedTimeSource
+        extends TimeSource
+    {
+        private final long startMillis;
+        private final long startNanos;
+        private final double rate;
+
+        private SimulatedTimeSource(final long inStartMillis, final double inRate)
+        {
+            if (! (inRate > 0.0))
+            {
+                throw new IllegalArgumentException("Bad rate " + inRate);
+            }
+            startMillis = inStartMillis;
+            startNanos = System.nanoTime();
+            rate = inRate;
+        }
+
+        @Override
+        public long currentTimeMillis()
+        {
+            return startMillis + (long) (((System.nanoTime() - startNanos) / 1000000.0) * rate);
+        }
+
+        @Override
+        public long toRealMillis(final long clockMillis)
+        {
+            if (clockMillis <= 0L)
+            {
+                return 0L;
+            }
+            return Math.max(1L, (long) Math.ceil(clockMillis / rate));
+        }
+
+        @Override
+        public String toString()
+        {
+            return "simulated:" + rate;
+        }
+    }
+}
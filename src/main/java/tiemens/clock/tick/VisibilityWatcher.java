@@ -0,0 +1,198 @@
+/*========================================================================
+ * VisibilityWatcher.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.tick;
+
+import java.awt.Component;
+import java.awt.Frame;
+import java.awt.Window;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+/**
+ * Tells a clock component when it stops or starts being seen, so it can
+ * stop ticking and rendering while nobody can see it.
+ * 
+ * "Visible" means the component is showing (it and every ancestor are 
+ * visible, and it is in a displayable window) and that window is not
+ * iconified.  Hierarchy events cover hiding, removal and disposal; a 
+ * listener on the enclosing window, moved along as the component is
+ * re-parented, covers iconify.  A window merely covered by other windows
+ * still counts as visible: AWT does not report occlusion.
+ * 
+ * The watcher starts out assuming visible, so a clock that is never put
+ * in a window keeps working; the listener is called, on the event 
+ * dispatch thread, only when visibility actually changes.
+ * 
+ * @author Tim Tiemens
+ */
+public final class VisibilityWatcher
+{
+    /**
+     * Receives visibility changes, on the event dispatch thread.
+     */
+    public interface Listener
+    {
+        /**
+         * @param visible true if the component can be seen now
+         */
+        void visibilityChanged(boolean visible);
+    }
+
+    /**
+     * @param component component to check
+     * @return true if component is showing in a window that is not iconified
+     */
+    public static boolean isVisible(final Component component)
+    {
+        if (! component.isShowing())
+        {
+            return false;
+        }
+        final Window window = windowOf(component);
+        return ! (window instanceof Frame) ||
+               ((((Frame) window).getExtendedState() & Frame.ICONIFIED) == 0);
+    }
+
+    private static Window windowOf(final Component component)
+    {
+        Component c = component;
+        while ((c != null) && ! (c instanceof Window))
+        {
+            c = c.getParent();
+        }
+        return (Window) c;
+    }
+
+    private final Component component;
+    private final Listener listener;
+
+    private volatile boolean visible = true;
+
+    /**
+     * the window windowListener is on; event dispatch thread only
+     */
+    private Window window = null;
+
+    private final WindowAdapter windowListener = new WindowAdapter()
+    {
+        @Override
+        public void windowIconified(final WindowEvent e)
+        {
+            set(false);
+        }
+
+        @Override
+        public void windowDeiconified(final WindowEvent e)
+        {
+            set(component.isShowing());
+        }
+    };
+
+    private final HierarchyListener hierarchyListener = new HierarchyListener()
+    {
+        public void hierarchyChanged(final HierarchyEvent e)
+        {
+            if ((e.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) != 0)
+            {
+                bindWindow();
+            }
+            set(isVisible(component));
+        }
+    };
+
+    /**
+     * Start watching.
+     * @param inComponent component to watch
+     * @param inListener told of each change
+     */
+    public VisibilityWatcher(final Component inComponent,
+                             final Listener inListener)
+    {
+        component = inComponent;
+        listener = inListener;
+        component.addHierarchyListener(hierarchyListener);
+        bindWindow();
+    }
+
+    /**
+     * @return visibility as of the last change seen
+     */
+    public boolean isVisible()
+    {
+        return visible;
+    }
+
+    /**
+     * Stop watching.
+     */
+    public void dispose()
+    {
+        component.removeHierarchyListener(hierarchyListener);
+        if (window != null)
+        {
+            window.removeWindowListener(windowListener);
+            window = null;
+        }
+    }
+
+    /**
+     * Keep windowListener on the window the component is in now.
+     */
+    private void bindWindow()
+    {
+        final Window now = windowOf(component);
+        if (now != window)
+        {
+            if (window != null)
+            {
+                window.removeWindowListener(windowListener);
+            }
+            window = now;
+            if (window != null)
+            {
+                window.addWindowListener(windowListener);
+            }
+        }
+    }
+
+    private void set(final boolean now)
+    {
+        if (now != visible)
+        {
+            visible = now;
+            listener.visibilityChanged(now);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*========================================================================
+ * TemplateFormatterTest.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.text.SimpleDateFormat;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+/**
+ * @author Tim Tiemens
+ */
+public class TemplateFormatterTest
+{
+    private static final String[] ZONES = 
+    {
+        "UTC", "America/New_York", "Europe/London", "Asia/Kolkata", 
+        "Australia/Lord_Howe", "Pacific/Chatham", "America/St_Johns"
+    };
+
+    /**
+     * 2000-01-01T00:00:00Z
+     */
+    private static final long Y2000 = 946684800000L;
+
+    private static final long SPAN = 60L * 365L * 24L * 60L * 60L * 1000L;
+
+    /**
+     * Compare to SimpleDateFormat at random times, 2000 to 2060
+     * @param pattern pattern both understand the same way
+     */
+    private static void assertSameAsSimpleDateFormat(final String pattern)
+    {
+        final Random random = new Random(pattern.hashCode());
+        for (String id : ZONES)
+        {
+            final TimeZone zone = TimeZone.getTimeZone(id);
+            final TemplateFormatter formatter = new TemplateFormatter(new TimeTemplate(pattern), zone);
+            final SimpleDateFormat expected = new SimpleDateFormat(pattern);
+            expected.setTimeZone(zone);
+            for (int i = 0; i < 2000; i++)
+            {
+                final long millis = Y2000 + (long) (random.nextDouble() * SPAN);
+                assertEquals(id + " " + millis, 
+                             expected.format(millis), formatter.getTimeString(millis));
+            }
+        }
+    }
+
+    @Test
+    public void test24Hour()
+    {
+        assertSameAsSimpleDateFormat(TimeTemplate.H24);
+    }
+
+    @Test
+    public void testDate()
+    {
+        assertSameAsSimpleDateFormat(TimeTemplate.DATE);
+    }
+
+    @Test
+    public void test12HourPadded()
+    {
+        assertSameAsSimpleDateFormat("hh:mm:ss");
+    }
+
+    @Test
+    public void testMilliseconds()
+    {
+        assertSameAsSimpleDateFormat("yy-MM-dd HH:mm:ss.SSS");
+    }
+
+    @Test
+    public void testBlankPaddedHour()
+    {
+        final TimeZone zone = TimeZone.getTimeZone("America/New_York");
+        final TemplateFormatter formatter = TemplateFormatter.forSpec("12h", zone);
+        final SimpleDateFormat expected = new SimpleDateFormat("h:mm:ss");
+        expected.setTimeZone(zone);
+        final Random random = new Random(12L);
+        for (int i = 0; i < 2000; i++)
+        {
+            final long millis = Y2000 + (long) (random.nextDouble() * SPAN);
+            final String s = expected.format(millis);
+            assertEquals((s.length() == 7) ? (" " + s) : s, formatter.getTimeString(millis));
+        }
+    }
+
+    @Test
+    public void testTenthsAndHundredths()
+    {
+        final TimeZone zone = TimeZone.getTimeZone("Asia/Kolkata");
+        final TemplateFormatter tenths = TemplateFormatter.forSpec("tenths", zone);
+        final TemplateFormatter hundredths = TemplateFormatter.forSpec("hundredths", zone);
+        final SimpleDateFormat expected = new SimpleDateFormat("HH:mm:ss.SSS");
+        expected.setTimeZone(zone);
+        final Random random = new Random(10L);
+        for (int i = 0; i < 2000; i++)
+        {
+            final long millis = Y2000 + (long) (random.nextDouble() * SPAN);
+            final String s = expected.format(millis);
+            assertEquals(s.substring(0, 10), tenths.getTimeString(millis));
+            assertEquals(s.substring(0, 11), hundredths.getTimeString(millis));
+        }
+    }
+
+    @Test
+    public void testSubSecond()
+    {
+        final TimeZone zone = TimeZone.getTimeZone("UTC");
+        assertTrue(TemplateFormatter.isSubSecond(TemplateFormatter.forSpec("tenths", zone)));
+        assertFalse(TemplateFormatter.isSubSecond(TemplateFormatter.forSpec("date", zone)));
+        TimeStringGenerator whole = TemplateFormatter.forSpec("24h", zone);
+        assertSame(whole, TemplateFormatter.requireWholeSecond(whole));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequireWholeSecondRefusesHundredths()
+    {
+        TemplateFormatter.requireWholeSecond(TemplateFormatter.forSpec("hundredths", 
+                                                                       TimeZone.getTimeZone("UTC")));
+    }
+
+    @Test
+    public void testCharsMatchString()
+    {
+        final TemplateFormatter formatter = TemplateFormatter.forSpec("date", TimeZone.getTimeZone("UTC"));
+        final char[] dest = new char[2 + formatter.getTemplate().getWidth()];
+        final int n = formatter.format(Y2000, dest, 2);
+        assertEquals("2000-01-01 00:00:00", new String(dest, 2, n));
+    }
+}
@@ -0,0 +1,138 @@
+/*========================================================================
+ * ZoneOffsetTableTest.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+/**
+ * @author Tim Tiemens
+ */
+public class ZoneOffsetTableTest
+{
+    private static final long HOUR = 60L * 60L * 1000L;
+
+    /**
+     * 2026-01-01T00:00:00Z
+     */
+    private static final long JAN_2026 = 1767225600000L;
+
+    /**
+     * 2026-03-08T07:00:00Z, when New York goes from -5 to -4
+     */
+    private static final long NY_SPRING_2026 = 1772953200000L;
+
+    /**
+     * 2026-11-01T06:00:00Z, when New York goes back to -5
+     */
+    private static final long NY_FALL_2026 = 1793512800000L;
+
+    @Test
+    public void testTransitionsToTheMillisecond()
+    {
+        TimeZone ny = TimeZone.getTimeZone("America/New_York");
+        ZoneOffsetTable table = new ZoneOffsetTable(ny, JAN_2026, JAN_2026 + (365L * 24L * HOUR));
+        assertEquals(2, table.getTransitionCount());
+
+        assertEquals(-5 * HOUR, table.getOffset(NY_SPRING_2026 - 1L));
+        assertEquals(-4 * HOUR, table.getOffset(NY_SPRING_2026));
+        assertEquals(-4 * HOUR, table.getOffset(NY_FALL_2026 - 1L));
+        assertEquals(-5 * HOUR, table.getOffset(NY_FALL_2026));
+    }
+
+    @Test
+    public void testMatchesTimeZoneAcrossTheWindow()
+    {
+        TimeZone zone = TimeZone.getTimeZone("Australia/Lord_Howe");
+        ZoneOffsetTable table = new ZoneOffsetTable(zone, JAN_2026, JAN_2026 + (2L * 365L * 24L * HOUR));
+        for (long t = JAN_2026 - (30L * 24L * HOUR); t < JAN_2026 + (800L * 24L * HOUR); t += 7L * HOUR)
+        {
+            assertEquals("at " + t, zone.getOffset(t), table.getOffset(t));
+        }
+    }
+
+    @Test
+    public void testNoTransitions()
+    {
+        ZoneOffsetTable table = new ZoneOffsetTable(TimeZone.getTimeZone("UTC"), 
+                                                    JAN_2026, JAN_2026 + (365L * 24L * HOUR));
+        assertEquals(0, table.getTransitionCount());
+        assertEquals(0, table.getOffset(NY_SPRING_2026));
+    }
+
+    @Test
+    public void testFarInstantDoesNotReplaceShared()
+    {
+        TimeZone zone = TimeZone.getTimeZone("Europe/Paris");
+        ZoneOffsetTable shared = ZoneOffsetTable.forZone(zone, JAN_2026);
+        assertTrue(shared.isShared());
+
+        ZoneOffsetTable past = ZoneOffsetTable.forZone(zone, JAN_2026 - (20L * 365L * 24L * HOUR));
+        assertFalse(past.isShared());
+        assertSame(shared, ZoneOffsetTable.forZone(zone, JAN_2026 + HOUR));
+    }
+
+    @Test
+    public void testSharedRollsForwardPastItsEnd()
+    {
+        TimeZone zone = TimeZone.getTimeZone("Asia/Tokyo");
+        ZoneOffsetTable shared = ZoneOffsetTable.forZone(zone, JAN_2026);
+        ZoneOffsetTable next = ZoneOffsetTable.forZone(zone, shared.getUntil());
+        assertTrue(next.isShared());
+        assertNotSame(shared, next);
+        assertSame(next, ZoneOffsetTable.forZone(zone, shared.getUntil() + HOUR));
+    }
+
+    @Test
+    public void testSameIdOtherRulesIsAnotherZone()
+    {
+        TimeZone real = TimeZone.getTimeZone("America/Chicago");
+        TimeZone fake = new SimpleTimeZone(3 * (int) HOUR, "America/Chicago");
+        ZoneOffsetTable a = ZoneOffsetTable.forZone(real, JAN_2026);
+        ZoneOffsetTable b = ZoneOffsetTable.forZone(fake, JAN_2026);
+        assertNotSame(a, b);
+        assertEquals(-6 * HOUR, a.getOffset(JAN_2026));
+        assertEquals(3 * HOUR, b.getOffset(JAN_2026));
+
+        assertEquals("6:00:00", TimeFormatter.forZone(real).getTimeString(JAN_2026));
+        assertEquals("3:00:00", TimeFormatter.forZone(fake).getTimeString(JAN_2026));
+    }
+}
@@ -0,0 +1,169 @@
+/*========================================================================
+ * MainSimpleClockTest.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import tiemens.clock.tick.ClockTickService;
+
+/**
+ * @author Tim Tiemens
+ */
+public class MainSimpleClockTest
+{
+    /**
+     * name of the shared ClockTickService's ticker thread
+     */
+    private static final String TICKER_NAME = "ClockTick";
+
+    private static void assertNoTicker()
+        throws InterruptedException
+    {
+        final ClockTickService service = ClockTickService.getShared();
+        assertEquals(0, service.getSubscriberCount());
+        assertFalse(service.isRunning());
+        for (Thread t : Thread.getAllStackTraces().keySet())
+        {
+            if (TICKER_NAME.equals(t.getName()))
+            {
+                t.join(2000L);
+                assertFalse("ticker thread still alive", t.isAlive());
+            }
+        }
+    }
+
+    @Test
+    public void testStartStop()
+        throws InterruptedException
+    {
+        MainSimpleClock clock = new MainSimpleClock();
+        clock.start();
+        assertTrue(clock.isTicking());
+        assertEquals(1, ClockTickService.getShared().getSubscriberCount());
+
+        clock.pause();
+        assertEquals(MainSimpleClock.State.PAUSED, clock.getState());
+        assertFalse(clock.isTicking());
+        clock.resume();
+        assertTrue(clock.isTicking());
+
+        clock.stop();
+        assertEquals(MainSimpleClock.State.STOPPED, clock.getState());
+        assertNoTicker();
+    }
+
+    @Test
+    public void testConcurrentLifecycle()
+        throws InterruptedException
+    {
+        final int threads = 8;
+        final int cycles = 2000;
+        final MainSimpleClock[] clocks = { new MainSimpleClock(), new MainSimpleClock() };
+        final CountDownLatch go = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int i = 0; i < threads; i++)
+        {
+            final long seed = i;
+            Thread t = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        go.await();
+                        Random random = new Random(seed);
+                        for (int c = 0; c < cycles; c++)
+                        {
+                            MainSimpleClock clock = clocks[random.nextInt(clocks.length)];
+                            switch (random.nextInt(4))
+                            {
+                            case 0:
+                                clock.start();
+                                break;
+                            case 1:
+                                clock.stop();
+                                break;
+                            case 2:
+                                clock.pause();
+                                break;
+                            default:
+                                clock.resume();
+                                break;
+                            }
+                        }
+                    }
+                    catch (Throwable e)
+                    {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            }, "lifecycle-" + i);
+            workers.add(t);
+            t.start();
+        }
+        go.countDown();
+        for (Thread t : workers)
+        {
+            t.join(60000L);
+            assertFalse(t.isAlive());
+        }
+        assertNull(failure.get());
+
+        // every clock's subscription matches its state
+        int ticking = 0;
+        for (MainSimpleClock clock : clocks)
+        {
+            assertEquals(clock.getState() == MainSimpleClock.State.RUNNING, clock.isTicking());
+            ticking += clock.isTicking() ? 1 : 0;
+        }
+        assertEquals(ticking, ClockTickService.getShared().getSubscriberCount());
+
+        for (MainSimpleClock clock : clocks)
+        {
+            clock.stop();
+        }
+        assertNoTicker();
+    }
+}
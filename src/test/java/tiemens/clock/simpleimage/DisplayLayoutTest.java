@@ -0,0 +1,131 @@
+/*========================================================================
+ * DisplayLayoutTest.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * @author Tim Tiemens
+ */
+public class DisplayLayoutTest
+{
+    /**
+     * digits 10 wide, ':' 4 wide, all 20 high
+     */
+    private static ConvertCharacterToImage digits()
+    {
+        Map<Character, Image> map = new HashMap<Character, Image>();
+        for (char c = '0'; c <= '9'; c++)
+        {
+            map.put(c, new BufferedImage(10, 20, BufferedImage.TYPE_INT_ARGB));
+        }
+        map.put(':', new BufferedImage(4, 20, BufferedImage.TYPE_INT_ARGB));
+        return new ConvertCharacterToImage("test", map, null);
+    }
+
+    private static DisplayLayout layout(final String info, final int w, final int h)
+    {
+        ConvertCharacterToImage dig = digits();
+        return DisplayLayout.compute(info, info.length(), dig, dig, null, w, h);
+    }
+
+    @Test
+    public void testNothingChangedIsEmpty()
+    {
+        DisplayLayout l = layout("12:34:56", 200, 40);
+        Rectangle dirty = l.getDirtyArea("12:34:56", "12:34:56");
+        assertTrue(dirty.isEmpty());
+    }
+
+    @Test
+    public void testSecondsChanged()
+    {
+        // 6 digits + 2 colons = 68 wide, centered in 200: dx = 66
+        DisplayLayout l = layout("12:34:56", 200, 40);
+        Rectangle dirty = l.getDirtyArea("12:34:56", "12:34:57");
+        assertEquals(new Rectangle(66 + 58, 10, 10, 20), dirty);
+    }
+
+    @Test
+    public void testChangesSpanFirstToLast()
+    {
+        DisplayLayout l = layout("12:34:56", 200, 40);
+        Rectangle dirty = l.getDirtyArea("12:34:56", "12:35:57");
+        assertEquals(new Rectangle(66 + 34, 10, 34, 20), dirty);
+    }
+
+    @Test
+    public void testCellAtZero()
+    {
+        // exactly as wide as the panel: the first cell starts at x = 0
+        DisplayLayout l = layout("12:34:56", 68, 20);
+        Rectangle dirty = l.getDirtyArea("12:34:56", "22:34:56");
+        assertEquals(new Rectangle(0, 0, 10, 20), dirty);
+    }
+
+    @Test
+    public void testCellEndingAtZero()
+    {
+        // 40 wider than the panel: dx = -20, so cell 0 is [-20, -10) and
+        // cell 1 is [-10, 0)
+        DisplayLayout l = layout("12:34:56", 28, 20);
+        Rectangle dirty = l.getDirtyArea("12:34:56", "13:34:56");
+        assertEquals(new Rectangle(-10, 0, 10, 20), dirty);
+    }
+
+    @Test
+    public void testNegativeOffset()
+    {
+        DisplayLayout l = layout("12:34:56", 28, 20);
+        Rectangle dirty = l.getDirtyArea("12:34:56", "02:34:56");
+        assertEquals(new Rectangle(-20, 0, 10, 20), dirty);
+    }
+
+    @Test
+    public void testMismatchIsNull()
+    {
+        DisplayLayout l = layout("12:34:56", 200, 40);
+        assertNull(l.getDirtyArea("12:34:56", "2:34:56"));
+        assertNull(l.getDirtyArea("12:34:56", "12:34:5x"));
+    }
+}
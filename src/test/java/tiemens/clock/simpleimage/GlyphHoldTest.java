@@ -0,0 +1,88 @@
+/*========================================================================
+ * GlyphHoldTest.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import tiemens.clock.simpleimage.ConvertCharacterToImageFactory.Types;
+
+/**
+ * @author Tim Tiemens
+ */
+public class GlyphHoldTest
+{
+    @Test
+    public void testRetainedOnlyWhileDisplayed()
+    {
+        final GlyphRegistry registry = new GlyphRegistry();
+        final Types a = Types.values()[0];
+        final Types b = Types.values()[1];
+        final GlyphHold hold = new GlyphHold(registry);
+
+        hold.set(registry.get(a));
+        assertEquals(1, registry.getRefCount(a));
+
+        hold.set(registry.get(b));
+        assertEquals(0, registry.getRefCount(a));
+        assertEquals(1, registry.getRefCount(b));
+
+        // removeNotify, twice, then addNotify
+        hold.suspend();
+        hold.suspend();
+        assertEquals(0, registry.getRefCount(b));
+        hold.resume();
+        assertEquals(1, registry.getRefCount(b));
+
+        // a set shown while not displayed is retained on the next resume
+        hold.suspend();
+        hold.set(registry.get(a));
+        assertEquals(0, registry.getRefCount(a));
+        hold.resume();
+        assertEquals(1, registry.getRefCount(a));
+        assertEquals(0, registry.getRefCount(b));
+    }
+
+    @Test
+    public void testReleaseUnusedKeepsTheInstance()
+    {
+        final GlyphRegistry registry = new GlyphRegistry();
+        final Types a = Types.values()[0];
+        final ConvertCharacterToImage held = registry.get(a);
+        registry.releaseUnused();
+        assertSame(held, registry.get(a));
+        assertEquals(1, registry.getLoadCount());
+    }
+}
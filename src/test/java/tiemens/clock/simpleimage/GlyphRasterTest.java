@@ -0,0 +1,110 @@
+/*========================================================================
+ * GlyphRasterTest.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.simpleimage;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.awt.Color;
+import java.awt.Dimension;
+
+import org.junit.Test;
+
+import tiemens.clock.simpleimage.ConvertCharacterToImageFactory.Types;
+
+/**
+ * GlyphRaster output must be pixel-identical to drawing each glyph with
+ * Graphics.drawImage.
+ * 
+ * @author Tim Tiemens
+ */
+public class GlyphRasterTest
+{
+    private static final String[] TEXTS = { "12:59:59", " 1:07:38", "10:00:00" };
+
+    /**
+     * Render every text through both paths, w x h, and compare the pixels.
+     */
+    private static void assertSamePixels(final ConvertCharacterToImage dig,
+                                         final Color background,
+                                         final int w,
+                                         final int h)
+    {
+        final HeadlessClockRenderer raster = new HeadlessClockRenderer(w, h, background, true);
+        final HeadlessClockRenderer graphics = new HeadlessClockRenderer(w, h, background, false);
+        final int[] expected = new int[w * h];
+        final int[] actual = new int[w * h];
+        for (String text : TEXTS)
+        {
+            graphics.renderArgb(text, dig, expected, 0);
+            raster.renderArgb(text, dig, actual, 0);
+            assertArrayEquals(dig.getName() + " bg=" + background + " " + w + "x" + h + 
+                              " \"" + text + "\"", 
+                              expected, actual);
+        }
+    }
+
+    private static void assertSamePixels(final ConvertCharacterToImage dig)
+    {
+        final Dimension d = HeadlessClockRenderer.measure("12:59:59", dig);
+        final int w = Math.max(1, d.width);
+        final int h = Math.max(1, d.height);
+        for (Color background : new Color[] { Color.BLACK, null })
+        {
+            // exact fit, a margin, and clipped on every side
+            assertSamePixels(dig, background, w, h);
+            assertSamePixels(dig, background, w + 13, h + 7);
+            assertSamePixels(dig, background, Math.max(1, w - 11), Math.max(1, h - 5));
+        }
+    }
+
+    @Test
+    public void testEverySet()
+    {
+        for (Types type : Types.values())
+        {
+            assertSamePixels(ConvertCharacterToImageFactory.get(type));
+        }
+    }
+
+    @Test
+    public void testEveryScaledSet()
+    {
+        final ScaledGlyphCache cache = new ScaledGlyphCache(4);
+        for (Types type : Types.values())
+        {
+            // neither a base height nor an integer factor: bicubic, translucent edges
+            assertSamePixels(cache.get(type, type.getGlyphHeight() + 7));
+            assertSamePixels(cache.get(type, Math.max(1, (type.getGlyphHeight() * 2) / 3)));
+        }
+    }
+}
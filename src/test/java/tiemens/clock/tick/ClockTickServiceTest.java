@@ -0,0 +1,77 @@
+/*========================================================================
+ * ClockTickServiceTest.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.tick;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author Tim Tiemens
+ */
+public class ClockTickServiceTest
+{
+    private static final ClockTickService.Subscriber NOTHING = 
+            new ClockTickService.Subscriber()
+    {
+        public void tick(final long secondMillis, final String text)
+        {
+        }
+    };
+
+    @Test
+    public void testSubscribeTwiceIsOneSubscription()
+    {
+        ClockTickService service = new ClockTickService("test");
+        service.subscribe(null, NOTHING);
+        service.subscribe(null, NOTHING);
+        assertEquals(1, service.getSubscriberCount());
+
+        service.unsubscribe(NOTHING);
+        assertEquals(0, service.getSubscriberCount());
+        assertFalse(service.isRunning());
+    }
+
+    @Test
+    public void testTickerRunsWhileSubscribed()
+    {
+        ClockTickService service = new ClockTickService("test");
+        assertFalse(service.isRunning());
+        service.subscribe(null, NOTHING);
+        assertTrue(service.isRunning());
+        service.unsubscribe(NOTHING);
+        assertFalse(service.isRunning());
+    }
+}
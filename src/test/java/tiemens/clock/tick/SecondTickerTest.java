@@ -0,0 +1,91 @@
+/*========================================================================
+ * SecondTickerTest.java
+ * Oct 19, 2026 ttiemens
+ *========================================================================
+ * This file is part of ClockInJava2.
+ *
+ * Copyright (c) 2013, Tim Tiemens
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * You should have received a copy of the BSD-2-Clause license
+ * along with this program.  If not, see <http://opensource.org/licenses/BSD-2-Clause>.
+ *   
+ */
+package tiemens.clock.tick;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author Tim Tiemens
+ */
+public class SecondTickerTest
+{
+    @Test
+    public void testOncePerSecond()
+    {
+        assertEquals(2000L, SecondTicker.nextBoundary(1000L, 0L));
+        assertEquals(2000L, SecondTicker.nextBoundary(1999L, 0L));
+        assertEquals(2000L, SecondTicker.nextBoundary(1994L, 5L));
+        // already inside the lead of 2000: the next one is 3000
+        assertEquals(3000L, SecondTicker.nextBoundary(1995L, 5L));
+    }
+
+    @Test
+    public void testTenPerSecond()
+    {
+        assertEquals(1100L, SecondTicker.nextBoundary(1000L, 0L, 10));
+        assertEquals(1100L, SecondTicker.nextBoundary(1099L, 0L, 10));
+        assertEquals(1200L, SecondTicker.nextBoundary(1100L, 0L, 10));
+        assertEquals(2000L, SecondTicker.nextBoundary(1950L, 0L, 10));
+    }
+
+    @Test
+    public void testSixtyPerSecondRoundsUp()
+    {
+        // 1000 / 60 = 16.67: boundaries at 17, 34, 50, ...
+        assertEquals(17L, SecondTicker.nextBoundary(0L, 0L, 60));
+        assertEquals(34L, SecondTicker.nextBoundary(17L, 0L, 60));
+        assertEquals(50L, SecondTicker.nextBoundary(34L, 0L, 60));
+    }
+
+    @Test
+    public void testEachSecondHasExactlyTicksPerSecondBoundaries()
+    {
+        for (int rate : new int[] { 1, 7, 10, 60, 144, 1000 })
+        {
+            long t = 5000L;
+            int count = 0;
+            while (t < 6000L)
+            {
+                final long next = SecondTicker.nextBoundary(t, 0L, rate);
+                assertTrue("rate " + rate, next > t);
+                t = next;
+                count++;
+            }
+            assertEquals("rate " + rate, 6000L, t);
+            assertEquals("rate " + rate, rate, count);
+        }
+    }
+}